@@ -0,0 +1,29 @@
+package com.sudoku.benchmarks;
+
+import com.sudoku.server.GenerateSudoku;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of generating one puzzle of every Difficulty.
+ */
+@State(Scope.Thread)
+public class GenerateBenchmark {
+    @Param({"EASY", "NORMAL", "HARD", "EXPERT"})
+    public GenerateSudoku.Difficulty difficulty;
+
+    private GenerateSudoku generateSudoku;
+
+    @Setup
+    public void setup() {
+        generateSudoku = new GenerateSudoku();
+    }
+
+    @Benchmark
+    public int[][] generate() {
+        return generateSudoku.generate(difficulty);
+    }
+}
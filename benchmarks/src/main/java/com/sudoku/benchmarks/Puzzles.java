@@ -0,0 +1,25 @@
+package com.sudoku.benchmarks;
+
+/**
+ * Fixed corpus of puzzles, so the numbers of different runs can be compared.
+ */
+public enum Puzzles {
+    EASY("530070000600195000098000060800060003400803001700020006060000280000419005000080079"),
+    HARD("800000000003600000070090200050007000000045700000100030001000068008500010090000400"),
+    // minimal puzzle with only 17 clues, the backtracker needs a very deep search for it
+    SEVENTEEN_CLUE("000000010400000000020000000000050407008000300001090000300400200050100000000806000");
+
+    private final String cells;
+
+    Puzzles(String cells) {
+        this.cells = cells;
+    }
+
+    public int[][] toGrid() {
+        int grid[][] = new int[9][9];
+        for (int i = 0; i < 81; i += 1) {
+            grid[i / 9][i % 9] = cells.charAt(i) - '0';
+        }
+        return grid;
+    }
+}
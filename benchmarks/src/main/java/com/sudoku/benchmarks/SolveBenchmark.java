@@ -0,0 +1,41 @@
+package com.sudoku.benchmarks;
+
+import com.sudoku.server.SolverEngine;
+import com.sudoku.server.SudokuSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of solving the puzzles of the corpus with every engine. The solvers work in place, so every invocation solves
+ * a fresh copy of the puzzle.
+ */
+@State(Scope.Thread)
+public class SolveBenchmark {
+    @Param({"EASY", "HARD", "SEVENTEEN_CLUE"})
+    public Puzzles puzzle;
+
+    @Param({"BACKTRACKING", "BITMASK", "DANCING_LINKS", "PARALLEL"})
+    public SolverEngine engine;
+
+    private SudokuSolver solver;
+    private int grid[][];
+
+    @Setup
+    public void setup() {
+        solver = engine.newSolver();
+        grid = puzzle.toGrid();
+    }
+
+    @Benchmark
+    public int[][] solve() {
+        int copy[][] = new int[9][];
+        for (int i = 0; i < 9; i += 1) {
+            copy[i] = grid[i].clone();
+        }
+        solver.solve(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,87 @@
+package com.sudoku.benchmarks;
+
+import com.sudoku.server.BitmaskSolver;
+import com.sudoku.server.GenerateSudoku;
+import com.sudoku.server.Puzzle;
+import com.sudoku.server.SolverEngine;
+import com.sudoku.server.SudokuSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of one uniqueness check, as done after every removal during generation. The puzzles are generated once per
+ * trial, so all engines see the same grids.
+ */
+@State(Scope.Thread)
+public class UniquenessBenchmark {
+    private static final int PUZZLES = 16;
+
+    @Param({"EASY", "EXPERT"})
+    public GenerateSudoku.Difficulty difficulty;
+
+    @Param({"BACKTRACKING", "BITMASK", "DANCING_LINKS"})
+    public SolverEngine engine;
+
+    private SudokuSolver solver;
+    private BitmaskSolver checker;
+    private int puzzles[][][];
+    private int solutions[][][];
+    private int next;
+    private int nextCell;
+
+    @Setup
+    public void setup() {
+        solver = engine.newSolver();
+        checker = new BitmaskSolver();
+        puzzles = new int[PUZZLES][][];
+        solutions = new int[PUZZLES][][];
+        GenerateSudoku generateSudoku = new GenerateSudoku();
+        for (int i = 0; i < PUZZLES; i += 1) {
+            Puzzle puzzle = generateSudoku.generatePuzzle(difficulty);
+            puzzles[i] = puzzle.getClues().toGrid();
+            solutions[i] = puzzle.getSolution().toGrid();
+        }
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        next = (next + 1) % PUZZLES;
+        return solver.countSolutions(puzzles[next], 2);
+    }
+
+    /**
+     * The full check for a second solution, on a board which stays loaded between removals.
+     */
+    @Benchmark
+    public boolean hasUniqueSolutionLoaded() {
+        next = (next + 1) % PUZZLES;
+        checker.load(puzzles[next]);
+        return checker.hasUniqueSolution();
+    }
+
+    /**
+     * The check used by the generator after every removal: one more clue of the puzzle is cleared and the search looks
+     * for a solution with another value in that cell.
+     */
+    @Benchmark
+    public boolean hasSolutionWithout() {
+        next = (next + 1) % PUZZLES;
+        int puzzle[][] = puzzles[next];
+        checker.load(puzzle);
+
+        // the next clue of the puzzle, in row order
+        int cell = nextCell;
+        do {
+            cell = (cell + 1) % 81;
+        } while (puzzle[cell / 9][cell % 9] == 0);
+        nextCell = cell;
+
+        int row = cell / 9;
+        int column = cell % 9;
+        checker.clearCell(row, column);
+        return checker.hasSolutionWithout(row, column, solutions[next][row][column]);
+    }
+}
@@ -0,0 +1,135 @@
+package com.sudoku;
+
+import com.sudoku.server.GenerateSudoku;
+import com.sudoku.server.SolverEngine;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The compact binary protocol of the ServerInterface operations, used as an alternative to RMI.
+ * <p>
+ * Every message is a frame: the length of the rest of the frame(4 bytes, big endian), followed by one byte and the
+ * payload. In a request the byte is the operation, in a response it is the status. Boards are sent as their packed
+ * 41 bytes, strings with writeUTF and enums as their ordinal. A connection handles one request at a time and the
+ * responses come in the order of the requests.
+ */
+public final class BinaryProtocol {
+    public static final int DEFAULT_PORT = 5000;
+    // requests are small, anything bigger is a broken or malicious client
+    public static final int MAX_REQUEST_SIZE = 64 * 1024;
+
+    // request: difficulty, response: board
+    public static final byte GENERATE_BOARD = 1;
+    // request: difficulty, count(int), response: batch(elapsed nanos, count and 81 bytes per puzzle)
+    public static final byte GENERATE_BATCH = 2;
+    // request: board, response: board
+    public static final byte SOLVE_BOARD = 3;
+    // request: engine, board, response: board
+    public static final byte SOLVE_WITH_ENGINE = 4;
+    // request: line, response: empty
+    public static final byte WRITE_TO_FILE = 5;
+    // request: result, response: empty
+    public static final byte SUBMIT_RESULT = 6;
+    // request: difficulty, count(int), response: count(int), username and elapsed seconds(long) per entry
+    public static final byte GET_TOP_TIMES = 7;
+    // request: username, response: username, solved, not solved and used solver(long)
+    public static final byte GET_USER_STATS = 8;
+    // request: board, response: solve result(status, then the solution or the message of an invalid input)
+    public static final byte SOLVE = 9;
+    // request: size(int), difficulty, response: sized board(size byte and one byte per cell)
+    public static final byte GENERATE_SIZED_BOARD = 10;
+    // request: sized board, response: sized board
+    public static final byte SOLVE_SIZED_BOARD = 11;
+    // request: difficulty, seed(long), response: board
+    public static final byte GENERATE_SEEDED_BOARD = 12;
+    // request: difficulty, response: board
+    public static final byte GET_DAILY_BOARD = 13;
+
+    public static final byte STATUS_OK = 0;
+    // followed by the message, the client throws an IllegalArgumentException
+    public static final byte STATUS_INVALID_ARGUMENT = 1;
+    // followed by the message, the client throws an IOException
+    public static final byte STATUS_ERROR = 2;
+    // followed by the message, the client throws a ServerBusyException
+    public static final byte STATUS_BUSY = 3;
+    // followed by the message, the client throws a DeadlineExceededException
+    public static final byte STATUS_DEADLINE_EXCEEDED = 4;
+
+    private BinaryProtocol() {
+    }
+
+    public static void writeDifficulty(DataOutput out, GenerateSudoku.Difficulty difficulty) throws IOException {
+        out.writeByte(difficulty.ordinal());
+    }
+
+    public static GenerateSudoku.Difficulty readDifficulty(DataInput in) throws IOException {
+        return readEnum(in, GenerateSudoku.Difficulty.values());
+    }
+
+    public static void writeEngine(DataOutput out, SolverEngine engine) throws IOException {
+        out.writeByte(engine.ordinal());
+    }
+
+    public static SolverEngine readEngine(DataInput in) throws IOException {
+        return readEnum(in, SolverEngine.values());
+    }
+
+    public static void writeResult(DataOutput out, GameResult result) throws IOException {
+        out.writeUTF(result.getUsername());
+        out.writeLong(result.getElapsedSeconds());
+        writeDifficulty(out, result.getDifficulty());
+        out.writeByte(result.getOutcome().ordinal());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the fields are not a valid result.
+     */
+    public static GameResult readResult(DataInput in) throws IOException {
+        return new GameResult(in.readUTF(), in.readLong(), readDifficulty(in),
+                readEnum(in, GameResult.Outcome.values()));
+    }
+
+    public static void writeUserStats(DataOutput out, UserStats stats) throws IOException {
+        out.writeUTF(stats.getUsername());
+        out.writeLong(stats.getSolved());
+        out.writeLong(stats.getNotSolved());
+        out.writeLong(stats.getUsedSolver());
+    }
+
+    public static UserStats readUserStats(DataInput in) throws IOException {
+        return new UserStats(in.readUTF(), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    public static void writeSolveResult(DataOutput out, SolveResult result) throws IOException {
+        out.writeByte(result.getStatus().ordinal());
+        if (result.getSolution() != null) {
+            result.getSolution().write(out);
+        } else if (result.getStatus() == SolveResult.Status.INVALID_INPUT) {
+            out.writeUTF(result.getMessage());
+        }
+    }
+
+    public static SolveResult readSolveResult(DataInput in) throws IOException {
+        switch (readEnum(in, SolveResult.Status.values())) {
+            case SOLVED:
+                return SolveResult.solved(Board.read(in));
+            case MULTIPLE:
+                return SolveResult.multiple(Board.read(in));
+            case NO_SOLUTION:
+                return SolveResult.noSolution();
+            default:
+                return SolveResult.invalidInput(in.readUTF());
+        }
+    }
+
+    private static <T extends Enum<T>> T readEnum(DataInput in, T values[]) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IllegalArgumentException("Invalid " + values[0].getDeclaringClass().getSimpleName() + ": " +
+                    ordinal);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,166 @@
+package com.sudoku;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+/**
+ * Immutable 9x9 board packed in 41 bytes, two cells per byte. It is used instead of int[][] on the wire, which Java
+ * serialization writes as 10 separate arrays with their own headers.
+ */
+public final class Board implements Externalizable {
+    private static final long serialVersionUID = 1L;
+    private static final int GRID_SIZE = 9;
+    private static final int CELLS = GRID_SIZE * GRID_SIZE;
+    private static final int PACKED_SIZE = (CELLS + 1) / 2;
+
+    private byte packed[];
+
+    /**
+     * Only used by deserialization, which fills the board once with readExternal.
+     */
+    public Board() {
+    }
+
+    private Board(byte packed[]) {
+        this.packed = packed;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the grid is not 9x9 or contains a value outside 0-9.
+     */
+    public static Board fromGrid(int grid[][]) {
+        if (grid == null || grid.length != GRID_SIZE) {
+            throw new IllegalArgumentException("The grid must have " + GRID_SIZE + " rows");
+        }
+        byte packed[] = new byte[PACKED_SIZE];
+        for (int row = 0; row < GRID_SIZE; row += 1) {
+            if (grid[row] == null || grid[row].length != GRID_SIZE) {
+                throw new IllegalArgumentException("Row " + row + " must have " + GRID_SIZE + " cells");
+            }
+            for (int column = 0; column < GRID_SIZE; column += 1) {
+                setNibble(packed, row * GRID_SIZE + column, grid[row][column]);
+            }
+        }
+        return new Board(packed);
+    }
+
+    /**
+     * Parses a board from 81 characters, row by row. Empty cells are written as '0' or '.'.
+     *
+     * @throws IllegalArgumentException if the text is not a valid board.
+     */
+    public static Board parse(CharSequence text) {
+        if (text.length() != CELLS) {
+            throw new IllegalArgumentException("A board must have " + CELLS + " characters, found " + text.length());
+        }
+        byte packed[] = new byte[PACKED_SIZE];
+        for (int i = 0; i < CELLS; i += 1) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                c = '0';
+            }
+            setNibble(packed, i, c - '0');
+        }
+        return new Board(packed);
+    }
+
+    public int get(int row, int column) {
+        int cell = row * GRID_SIZE + column;
+        return (packed[cell >> 1] >> ((cell & 1) << 2)) & 0xF;
+    }
+
+    public int[][] toGrid() {
+        int grid[][] = new int[GRID_SIZE][GRID_SIZE];
+        for (int row = 0; row < GRID_SIZE; row += 1) {
+            for (int column = 0; column < GRID_SIZE; column += 1) {
+                grid[row][column] = get(row, column);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Writes the packed 41 bytes, the same as serialization does, but without the stream headers.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.write(packed);
+    }
+
+    /**
+     * Reads a board written with write.
+     *
+     * @throws InvalidObjectException if a cell contains a value outside 0-9 or the unused half of the last byte is not
+     *                                0.
+     */
+    public static Board read(DataInput in) throws IOException {
+        byte data[] = new byte[PACKED_SIZE];
+        in.readFully(data);
+        for (int i = 0; i < CELLS; i += 1) {
+            if (((data[i >> 1] >> ((i & 1) << 2)) & 0xF) > GRID_SIZE) {
+                throw new InvalidObjectException("Invalid value in cell " + i);
+            }
+        }
+        // equal boards must have equal bytes, otherwise equals and hashCode would depend on the padding
+        if ((data[PACKED_SIZE - 1] & 0xF0) != 0) {
+            throw new InvalidObjectException("Invalid padding after the last cell");
+        }
+        return new Board(data);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        write(out);
+    }
+
+    /**
+     * @throws IllegalStateException if the board was already filled, boards can't be changed.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        if (packed != null) {
+            throw new IllegalStateException("The board is immutable");
+        }
+        packed = read(in).packed;
+    }
+
+    /**
+     * @return the board as 81 digits, row by row, with 0 for empty cells.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(CELLS);
+        for (int i = 0; i < CELLS; i += 1) {
+            builder.append((char) ('0' + get(i / GRID_SIZE, i % GRID_SIZE)));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Board)) {
+            return false;
+        }
+        return Arrays.equals(packed, ((Board) o).packed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(packed);
+    }
+
+    private static void setNibble(byte packed[], int cell, int value) {
+        if (value < 0 || value > GRID_SIZE) {
+            throw new IllegalArgumentException("Invalid value " + value + " in cell " + cell);
+        }
+        packed[cell >> 1] |= value << ((cell & 1) << 2);
+    }
+}
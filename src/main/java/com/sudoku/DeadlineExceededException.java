@@ -0,0 +1,14 @@
+package com.sudoku;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown when the server stopped a request because it took longer than the time it is allowed to take.
+ */
+public class DeadlineExceededException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,144 @@
+package com.sudoku;
+
+import com.sudoku.server.GenerateSudoku;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * The result of one game, sent by the client when a game ends.
+ */
+public class GameResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final long elapsedSeconds;
+    private final GenerateSudoku.Difficulty difficulty;
+    private final Outcome outcome;
+
+    public GameResult(String username, long elapsedSeconds, GenerateSudoku.Difficulty difficulty, Outcome outcome) {
+        if (username == null || difficulty == null || outcome == null || elapsedSeconds < 0) {
+            throw new IllegalArgumentException("Invalid game result");
+        }
+        this.username = username;
+        this.elapsedSeconds = elapsedSeconds;
+        this.difficulty = difficulty;
+        this.outcome = outcome;
+    }
+
+    /**
+     * Converts the time shown in the Header(hh:mm:ss) to seconds. An empty text means the first second has not
+     * passed yet.
+     */
+    public static long parseElapsedTime(String time) {
+        long seconds = 0;
+        if (time == null || time.isEmpty()) {
+            return seconds;
+        }
+        for (String part : time.split(":")) {
+            seconds = seconds * 60 + Long.parseLong(part.trim());
+        }
+        return seconds;
+    }
+
+    /**
+     * Parses a line in the text format of log.txt.
+     *
+     * @return the result, or null if the line is not in that format.
+     */
+    public static GameResult fromLogLine(String line) {
+        String prefix = "Username: ";
+        int time = line.lastIndexOf(", Time: ");
+        int difficulty = line.lastIndexOf(", Difficulty: ");
+        if (!line.startsWith(prefix) || time == -1 || difficulty < time) {
+            return null;
+        }
+        int outcome = line.indexOf(", ", difficulty + 1);
+        if (outcome == -1) {
+            return null;
+        }
+
+        GenerateSudoku.Difficulty parsedDifficulty = null;
+        for (GenerateSudoku.Difficulty value : GenerateSudoku.Difficulty.values()) {
+            if (value.getLabel().equals(line.substring(difficulty + ", Difficulty: ".length(), outcome))) {
+                parsedDifficulty = value;
+            }
+        }
+        Outcome parsedOutcome = null;
+        for (Outcome value : Outcome.values()) {
+            if (value.getLabel().equals(line.substring(outcome + 2))) {
+                parsedOutcome = value;
+            }
+        }
+        if (parsedDifficulty == null || parsedOutcome == null) {
+            return null;
+        }
+
+        try {
+            return new GameResult(line.substring(prefix.length(), time),
+                    parseElapsedTime(line.substring(time + ", Time: ".length(), difficulty)), parsedDifficulty,
+                    parsedOutcome);
+        } catch (IllegalArgumentException e) {
+            // a number which can't be parsed or a negative time
+            return null;
+        }
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public GenerateSudoku.Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return the result in the text format of log.txt.
+     */
+    public String toLogLine() {
+        return "Username: " + username + ", Time: " + String.format("%02d:%02d:%02d", elapsedSeconds / 3600,
+                elapsedSeconds / 60 % 60, elapsedSeconds % 60) + ", Difficulty: " + difficulty.getLabel() + ", " +
+                outcome.getLabel();
+    }
+
+    @Override
+    public String toString() {
+        return toLogLine();
+    }
+
+    /**
+     * Deserialization doesn't call the constructor, so the received fields are checked by creating the result again.
+     */
+    private Object readResolve() throws ObjectStreamException {
+        try {
+            return new GameResult(username, elapsedSeconds, difficulty, outcome);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+    }
+
+    public enum Outcome {
+        SOLVED("Solved"),
+        NOT_SOLVED("Not Solved"),
+        USED_SOLVER("Used Solver");
+
+        private final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
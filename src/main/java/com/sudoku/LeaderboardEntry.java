@@ -0,0 +1,39 @@
+package com.sudoku;
+
+import com.sudoku.server.GenerateSudoku;
+
+import java.io.Serializable;
+
+/**
+ * The best time of a user on one difficulty.
+ */
+public class LeaderboardEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final long elapsedSeconds;
+    private final GenerateSudoku.Difficulty difficulty;
+
+    public LeaderboardEntry(String username, long elapsedSeconds, GenerateSudoku.Difficulty difficulty) {
+        this.username = username;
+        this.elapsedSeconds = elapsedSeconds;
+        this.difficulty = difficulty;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public GenerateSudoku.Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public String toString() {
+        return username + " " + elapsedSeconds + "s " + difficulty.getLabel();
+    }
+}
@@ -0,0 +1,83 @@
+package com.sudoku;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+
+/**
+ * A batch of generated puzzles stored as one byte array with 81 cells per puzzle, so it is sent as a single compact
+ * payload instead of one int[][] per puzzle.
+ */
+public class PuzzleBatch implements Serializable {
+    private static final long serialVersionUID = 1L;
+    // the largest batch the server generates, a bigger count on the wire is a broken stream
+    public static final int MAX_SIZE = 100_000;
+    private static final int GRID_SIZE = 9;
+    private static final int CELLS = GRID_SIZE * GRID_SIZE;
+
+    private final byte cells[];
+    private final long elapsedNanos;
+
+    /**
+     * @param cells        - the cells of all puzzles, row by row, 81 per puzzle.
+     * @param elapsedNanos - the time it took to generate the batch.
+     */
+    public PuzzleBatch(byte cells[], long elapsedNanos) {
+        if (cells.length % CELLS != 0) {
+            throw new IllegalArgumentException("The number of cells must be a multiple of " + CELLS);
+        }
+        this.cells = cells;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int size() {
+        return cells.length / CELLS;
+    }
+
+    public int[][] getGrid(int index) {
+        int grid[][] = new int[GRID_SIZE][GRID_SIZE];
+        int offset = index * CELLS;
+        for (int i = 0; i < CELLS; i += 1) {
+            grid[i / GRID_SIZE][i % GRID_SIZE] = cells[offset + i];
+        }
+        return grid;
+    }
+
+    /**
+     * Writes the elapsed time, the number of puzzles and the cells, without the serialization headers.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(elapsedNanos);
+        out.writeInt(size());
+        out.write(cells);
+    }
+
+    /**
+     * Reads a batch written with write.
+     *
+     * @throws InvalidObjectException if the number of puzzles is negative or larger than MAX_SIZE.
+     */
+    public static PuzzleBatch read(DataInput in) throws IOException {
+        long elapsedNanos = in.readLong();
+        int count = in.readInt();
+        if (count < 0 || count > MAX_SIZE) {
+            throw new InvalidObjectException("Invalid batch size " + count);
+        }
+        byte cells[] = new byte[count * CELLS];
+        in.readFully(cells);
+        return new PuzzleBatch(cells, elapsedNanos);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getPuzzlesPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return size() * 1_000_000_000.0 / elapsedNanos;
+    }
+}
@@ -0,0 +1,15 @@
+package com.sudoku;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown when the server already executes as many requests as it allows and too many are waiting, so the request is
+ * rejected without being executed. It can be retried later.
+ */
+public class ServerBusyException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public ServerBusyException(String message) {
+        super(message);
+    }
+}
@@ -1,15 +1,60 @@
 package com.sudoku;
 
 import com.sudoku.server.GenerateSudoku;
+import com.sudoku.server.SolverEngine;
 
 import java.io.IOException;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 
 public interface ServerInterface extends Remote {
     int[][] generateSudoku(GenerateSudoku.Difficulty difficulty) throws RemoteException;
 
+    Board generateSudokuBoard(GenerateSudoku.Difficulty difficulty) throws RemoteException;
+
+    /**
+     * Generates the puzzle of the seed, which is the same for the same seed and difficulty.
+     */
+    Board generateSudokuBoard(GenerateSudoku.Difficulty difficulty, long seed) throws RemoteException;
+
+    /**
+     * @return the puzzle of the day, which is the same for every client until midnight UTC.
+     */
+    Board getDailySudoku(GenerateSudoku.Difficulty difficulty) throws RemoteException;
+
+    PuzzleBatch generateBatch(GenerateSudoku.Difficulty difficulty, int count) throws RemoteException;
+
+    /**
+     * Generates a puzzle with the given number of rows: 4, 9, 16 or 25.
+     */
+    SizedBoard generateSudokuBoard(int size, GenerateSudoku.Difficulty difficulty) throws RemoteException;
+
     int[][] solveSudoku(int[][] grid) throws RemoteException;
 
+    int[][] solveSudoku(int[][] grid, SolverEngine engine) throws RemoteException;
+
+    Board solveSudoku(Board board) throws RemoteException;
+
+    /**
+     * Validates the grid before searching and reports whether it has one, several or no solutions.
+     */
+    SolveResult solve(int[][] grid) throws RemoteException;
+
+    SolveResult solve(Board board) throws RemoteException;
+
+    /**
+     * Solves a board of any supported size.
+     *
+     * @return the solution, or the same board if it has none.
+     */
+    SizedBoard solveSudoku(SizedBoard board) throws RemoteException;
+
     void writeToFile(String line) throws IOException;
+
+    void submitResult(GameResult result) throws IOException;
+
+    List<LeaderboardEntry> getTopTimes(GenerateSudoku.Difficulty difficulty, int count) throws RemoteException;
+
+    UserStats getUserStats(String username) throws RemoteException;
 }
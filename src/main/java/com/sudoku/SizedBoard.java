@@ -0,0 +1,219 @@
+package com.sudoku;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+/**
+ * Immutable board of any supported size: 4x4, 9x9, 16x16 or 25x25, with square boxes. Every cell takes one byte.
+ * <p>
+ * As text the board is written row by row with '0' or '.' for empty cells, the digits 1-9 for the values up to 9 and
+ * the letters A-P for the values 10-25, so a 9x9 board has the same text as a Board.
+ */
+public final class SizedBoard implements Externalizable {
+    private static final long serialVersionUID = 1L;
+    public static final int MIN_BOX_SIZE = 2;
+    public static final int MAX_BOX_SIZE = 5;
+
+    private int size;
+    private byte cells[];
+
+    /**
+     * Only used by deserialization.
+     */
+    public SizedBoard() {
+    }
+
+    private SizedBoard(int size, byte cells[]) {
+        this.size = size;
+        this.cells = cells;
+    }
+
+    /**
+     * @param size - the number of rows of the board.
+     * @return the number of rows of a box.
+     * @throws IllegalArgumentException if the size is not supported.
+     */
+    public static int boxSizeOf(int size) {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize += 1) {
+            if (boxSize * boxSize == size) {
+                return boxSize;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported board size " + size + ", expected 4, 9, 16 or 25");
+    }
+
+    /**
+     * @throws IllegalArgumentException if the grid is not square, has an unsupported size or contains a value outside
+     *                                  0-size.
+     */
+    public static SizedBoard fromGrid(int grid[][]) {
+        if (grid == null) {
+            throw new IllegalArgumentException("The grid is missing");
+        }
+        int size = grid.length;
+        boxSizeOf(size);
+
+        byte cells[] = new byte[size * size];
+        for (int row = 0; row < size; row += 1) {
+            if (grid[row] == null || grid[row].length != size) {
+                throw new IllegalArgumentException("Row " + row + " must have " + size + " cells");
+            }
+            for (int column = 0; column < size; column += 1) {
+                int value = grid[row][column];
+                if (value < 0 || value > size) {
+                    throw new IllegalArgumentException("Invalid value " + value + " in row " + row + ", column " +
+                            column);
+                }
+                cells[row * size + column] = (byte) value;
+            }
+        }
+        return new SizedBoard(size, cells);
+    }
+
+    public static SizedBoard fromBoard(Board board) {
+        return fromGrid(board.toGrid());
+    }
+
+    /**
+     * Parses a board from its text. The size is taken from the length: 16, 81, 256 or 625 characters.
+     *
+     * @throws IllegalArgumentException if the text is not a valid board.
+     */
+    public static SizedBoard parse(CharSequence text) {
+        int size = (int) Math.round(Math.sqrt(text.length()));
+        if (size * size != text.length()) {
+            throw new IllegalArgumentException("A board must have 16, 81, 256 or 625 characters, found " +
+                    text.length());
+        }
+        boxSizeOf(size);
+
+        byte cells[] = new byte[text.length()];
+        for (int i = 0; i < cells.length; i += 1) {
+            int value = valueOf(text.charAt(i));
+            if (value < 0 || value > size) {
+                throw new IllegalArgumentException("Invalid character '" + text.charAt(i) + "' at " + i);
+            }
+            cells[i] = (byte) value;
+        }
+        return new SizedBoard(size, cells);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getBoxSize() {
+        return boxSizeOf(size);
+    }
+
+    public int get(int row, int column) {
+        return cells[row * size + column];
+    }
+
+    public int[][] toGrid() {
+        int grid[][] = new int[size][size];
+        for (int row = 0; row < size; row += 1) {
+            for (int column = 0; column < size; column += 1) {
+                grid[row][column] = cells[row * size + column];
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Writes the size and one byte per cell.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(size);
+        out.write(cells);
+    }
+
+    /**
+     * Reads a board written with write.
+     *
+     * @throws InvalidObjectException if the size is not supported or a cell contains a value outside 0-size.
+     */
+    public static SizedBoard read(DataInput in) throws IOException {
+        int size = in.readUnsignedByte();
+        try {
+            boxSizeOf(size);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+
+        byte cells[] = new byte[size * size];
+        in.readFully(cells);
+        for (int i = 0; i < cells.length; i += 1) {
+            if (cells[i] < 0 || cells[i] > size) {
+                throw new InvalidObjectException("Invalid value in cell " + i);
+            }
+        }
+        return new SizedBoard(size, cells);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        write(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        SizedBoard board = read(in);
+        size = board.size;
+        cells = board.cells;
+    }
+
+    /**
+     * @return the text of the board, see the description of the class.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(cells.length);
+        for (byte value : cells) {
+            builder.append(value < 10 ? (char) ('0' + value) : (char) ('A' + value - 10));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SizedBoard)) {
+            return false;
+        }
+        SizedBoard other = (SizedBoard) o;
+        return size == other.size && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(cells);
+    }
+
+    /**
+     * @return the value of the character, or -1 if it is not a valid character.
+     */
+    private static int valueOf(char c) {
+        if (c == '.') {
+            return 0;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
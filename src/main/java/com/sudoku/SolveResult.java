@@ -0,0 +1,79 @@
+package com.sudoku;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of solving a board, so the client can tell an invalid or unsolvable board from a solved one instead of
+ * getting its own board back.
+ */
+public class SolveResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Status status;
+    private final Board solution;
+    private final String message;
+
+    private SolveResult(Status status, Board solution, String message) {
+        this.status = status;
+        this.solution = solution;
+        this.message = message;
+    }
+
+    public static SolveResult solved(Board solution) {
+        return new SolveResult(Status.SOLVED, solution, null);
+    }
+
+    /**
+     * @param solution - the first solution which was found.
+     */
+    public static SolveResult multiple(Board solution) {
+        return new SolveResult(Status.MULTIPLE, solution, null);
+    }
+
+    public static SolveResult noSolution() {
+        return new SolveResult(Status.NO_SOLUTION, null, null);
+    }
+
+    /**
+     * @param message - what is wrong with the input.
+     */
+    public static SolveResult invalidInput(String message) {
+        return new SolveResult(Status.INVALID_INPUT, null, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the solution, or null if the status is NO_SOLUTION or INVALID_INPUT.
+     */
+    public Board getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return what is wrong with the input, or null if the status is not INVALID_INPUT.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        if (solution != null) {
+            return status + " " + solution;
+        }
+        return message != null ? status + " " + message : status.toString();
+    }
+
+    public enum Status {
+        // the board has exactly one solution
+        SOLVED,
+        NO_SOLUTION,
+        // the board can be solved in more than one way
+        MULTIPLE,
+        // the board is not 9x9, contains a value outside 0-9 or two equal digits share a row, column or sector
+        INVALID_INPUT
+    }
+}
@@ -0,0 +1,47 @@
+package com.sudoku;
+
+import java.io.Serializable;
+
+/**
+ * How many games a user finished with every outcome.
+ */
+public class UserStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final long solved;
+    private final long notSolved;
+    private final long usedSolver;
+
+    public UserStats(String username, long solved, long notSolved, long usedSolver) {
+        this.username = username;
+        this.solved = solved;
+        this.notSolved = notSolved;
+        this.usedSolver = usedSolver;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getSolved() {
+        return solved;
+    }
+
+    public long getNotSolved() {
+        return notSolved;
+    }
+
+    public long getUsedSolver() {
+        return usedSolver;
+    }
+
+    public long getGames() {
+        return solved + notSolved + usedSolver;
+    }
+
+    @Override
+    public String toString() {
+        return username + ": solved " + solved + ", not solved " + notSolved + ", used solver " + usedSolver;
+    }
+}
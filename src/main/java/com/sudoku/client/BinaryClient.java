@@ -0,0 +1,291 @@
+package com.sudoku.client;
+
+import com.sudoku.BinaryProtocol;
+import com.sudoku.Board;
+import com.sudoku.DeadlineExceededException;
+import com.sudoku.GameResult;
+import com.sudoku.LeaderboardEntry;
+import com.sudoku.PuzzleBatch;
+import com.sudoku.ServerBusyException;
+import com.sudoku.ServerInterface;
+import com.sudoku.SizedBoard;
+import com.sudoku.SolveResult;
+import com.sudoku.UserStats;
+import com.sudoku.server.GenerateSudoku;
+import com.sudoku.server.SolverEngine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ServerInterface which talks to a BinaryServer over one socket, so the client can use the binary protocol instead
+ * of RMI without other changes. The calls are synchronized, because the protocol handles one request at a time.
+ */
+public class BinaryClient implements ServerInterface, Closeable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public BinaryClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    @Override
+    public int[][] generateSudoku(GenerateSudoku.Difficulty difficulty) throws RemoteException {
+        return generateSudokuBoard(difficulty).toGrid();
+    }
+
+    @Override
+    public Board generateSudokuBoard(GenerateSudoku.Difficulty difficulty) throws RemoteException {
+        Request request = new Request(BinaryProtocol.GENERATE_BOARD);
+        try {
+            BinaryProtocol.writeDifficulty(request.payload, difficulty);
+            return Board.read(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public Board generateSudokuBoard(GenerateSudoku.Difficulty difficulty, long seed) throws RemoteException {
+        Request request = new Request(BinaryProtocol.GENERATE_SEEDED_BOARD);
+        try {
+            BinaryProtocol.writeDifficulty(request.payload, difficulty);
+            request.payload.writeLong(seed);
+            return Board.read(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public Board getDailySudoku(GenerateSudoku.Difficulty difficulty) throws RemoteException {
+        Request request = new Request(BinaryProtocol.GET_DAILY_BOARD);
+        try {
+            BinaryProtocol.writeDifficulty(request.payload, difficulty);
+            return Board.read(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public SizedBoard generateSudokuBoard(int size, GenerateSudoku.Difficulty difficulty) throws RemoteException {
+        Request request = new Request(BinaryProtocol.GENERATE_SIZED_BOARD);
+        try {
+            request.payload.writeInt(size);
+            BinaryProtocol.writeDifficulty(request.payload, difficulty);
+            return SizedBoard.read(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public PuzzleBatch generateBatch(GenerateSudoku.Difficulty difficulty, int count) throws RemoteException {
+        Request request = new Request(BinaryProtocol.GENERATE_BATCH);
+        try {
+            BinaryProtocol.writeDifficulty(request.payload, difficulty);
+            request.payload.writeInt(count);
+            return PuzzleBatch.read(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public int[][] solveSudoku(int[][] grid) throws RemoteException {
+        Board clues;
+        try {
+            clues = Board.fromGrid(grid);
+        } catch (IllegalArgumentException e) {
+            // not a 9x9 board, it can't be solved and is returned unchanged
+            return grid;
+        }
+        copy(solveSudoku(clues), grid);
+        return grid;
+    }
+
+    @Override
+    public int[][] solveSudoku(int[][] grid, SolverEngine engine) throws RemoteException {
+        Board clues;
+        try {
+            clues = Board.fromGrid(grid);
+        } catch (IllegalArgumentException e) {
+            return grid;
+        }
+
+        Request request = new Request(BinaryProtocol.SOLVE_WITH_ENGINE);
+        try {
+            BinaryProtocol.writeEngine(request.payload, engine);
+            clues.write(request.payload);
+            copy(Board.read(call(request)), grid);
+            return grid;
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public Board solveSudoku(Board board) throws RemoteException {
+        Request request = new Request(BinaryProtocol.SOLVE_BOARD);
+        try {
+            board.write(request.payload);
+            return Board.read(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public SolveResult solve(int[][] grid) throws RemoteException {
+        Board board;
+        try {
+            board = Board.fromGrid(grid);
+        } catch (IllegalArgumentException e) {
+            // a board which can't be packed can't be sent either
+            return SolveResult.invalidInput(e.getMessage());
+        }
+        return solve(board);
+    }
+
+    @Override
+    public SolveResult solve(Board board) throws RemoteException {
+        Request request = new Request(BinaryProtocol.SOLVE);
+        try {
+            board.write(request.payload);
+            return BinaryProtocol.readSolveResult(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public SizedBoard solveSudoku(SizedBoard board) throws RemoteException {
+        Request request = new Request(BinaryProtocol.SOLVE_SIZED_BOARD);
+        try {
+            board.write(request.payload);
+            return SizedBoard.read(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public void writeToFile(String line) throws IOException {
+        Request request = new Request(BinaryProtocol.WRITE_TO_FILE);
+        request.payload.writeUTF(line);
+        call(request);
+    }
+
+    @Override
+    public void submitResult(GameResult result) throws IOException {
+        Request request = new Request(BinaryProtocol.SUBMIT_RESULT);
+        BinaryProtocol.writeResult(request.payload, result);
+        call(request);
+    }
+
+    @Override
+    public List<LeaderboardEntry> getTopTimes(GenerateSudoku.Difficulty difficulty, int count)
+            throws RemoteException {
+        Request request = new Request(BinaryProtocol.GET_TOP_TIMES);
+        try {
+            BinaryProtocol.writeDifficulty(request.payload, difficulty);
+            request.payload.writeInt(count);
+            DataInputStream response = call(request);
+
+            int size = response.readInt();
+            List<LeaderboardEntry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i += 1) {
+                entries.add(new LeaderboardEntry(response.readUTF(), response.readLong(), difficulty));
+            }
+            return entries;
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public UserStats getUserStats(String username) throws RemoteException {
+        Request request = new Request(BinaryProtocol.GET_USER_STATS);
+        try {
+            request.payload.writeUTF(username);
+            return BinaryProtocol.readUserStats(call(request));
+        } catch (IOException e) {
+            throw remoteException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    /**
+     * Sends the request and waits for its response.
+     *
+     * @return the payload of the response.
+     * @throws IllegalArgumentException if the server rejected the arguments.
+     * @throws IOException              if the connection failed or the server could not execute the request.
+     */
+    private synchronized DataInputStream call(Request request) throws IOException {
+        out.writeInt(request.bytes.size() + 1);
+        out.writeByte(request.operation);
+        request.bytes.writeTo(out);
+        out.flush();
+
+        byte response[] = new byte[in.readInt()];
+        in.readFully(response);
+        DataInputStream payload = new DataInputStream(new ByteArrayInputStream(response, 1, response.length - 1));
+        switch (response[0]) {
+            case BinaryProtocol.STATUS_OK:
+                return payload;
+            case BinaryProtocol.STATUS_INVALID_ARGUMENT:
+                throw new IllegalArgumentException(payload.readUTF());
+            case BinaryProtocol.STATUS_BUSY:
+                throw new ServerBusyException(payload.readUTF());
+            case BinaryProtocol.STATUS_DEADLINE_EXCEEDED:
+                throw new DeadlineExceededException(payload.readUTF());
+            default:
+                throw new IOException(payload.readUTF());
+        }
+    }
+
+    private static void copy(Board board, int grid[][]) {
+        for (int row = 0; row < grid.length; row += 1) {
+            for (int column = 0; column < grid[row].length; column += 1) {
+                grid[row][column] = board.get(row, column);
+            }
+        }
+    }
+
+    private static RemoteException remoteException(IOException e) {
+        if (e instanceof RemoteException) {
+            return (RemoteException) e;
+        }
+        return new RemoteException(e.getMessage(), e);
+    }
+
+    private static class Request {
+        private final byte operation;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream payload = new DataOutputStream(bytes);
+
+        Request(byte operation) {
+            this.operation = operation;
+        }
+    }
+}
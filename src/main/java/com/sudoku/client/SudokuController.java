@@ -1,5 +1,8 @@
 package com.sudoku.client;
 
+import com.sudoku.BinaryProtocol;
+import com.sudoku.Board;
+import com.sudoku.GameResult;
 import com.sudoku.ServerInterface;
 import com.sudokugui.*;
 import com.sudoku.server.GenerateSudoku;
@@ -37,6 +40,7 @@ public class SudokuController implements Initializable {
     private ControlPanel controlPanel;
 
     private ServerInterface serverObject;
+    private volatile GenerateSudoku.Difficulty currentDifficulty = GenerateSudoku.Difficulty.NORMAL;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -68,11 +72,8 @@ public class SudokuController implements Initializable {
         grid = new Grid(header, new Runnable() {
             @Override
             public void run() {
-                String line =
-                        "Username: " + header.getUsername() + ", Time: " + header.getElapsedTime() + ", " +
-                                "Difficulty: " + header.getDifficultyLabel() + ", Solved";
                 try {
-                    serverObject.writeToFile(line);
+                    serverObject.submitResult(createResult(GameResult.Outcome.SOLVED));
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -84,8 +85,14 @@ public class SudokuController implements Initializable {
         int sudokuGrid[][] = new int[0][];
 
         try {
-            serverObject = (ServerInterface) Naming.lookup("rmi://localhost:4999" + "/sudoku");
-            sudokuGrid = serverObject.generateSudoku(GenerateSudoku.Difficulty.NORMAL);
+            // -Dsudoku.transport=binary connects to a server started in binary mode instead of RMI
+            if ("binary".equals(System.getProperty("sudoku.transport"))) {
+                serverObject = new BinaryClient("localhost",
+                        Integer.getInteger("sudoku.binary.port", BinaryProtocol.DEFAULT_PORT));
+            } else {
+                serverObject = (ServerInterface) Naming.lookup("rmi://localhost:4999" + "/sudoku");
+            }
+            sudokuGrid = serverObject.generateSudokuBoard(GenerateSudoku.Difficulty.NORMAL).toGrid();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -107,6 +114,9 @@ public class SudokuController implements Initializable {
                     @Override
                     protected Object call() {
                         GenerateSudoku.Difficulty difficulty = null;
+                        // the result of the unfinished game is reported with the difficulty it was played on
+                        GameResult unfinished = grid.isSolved() ? null :
+                                createResult(GameResult.Outcome.NOT_SOLVED);
 
                         switch (item.getText()) {
                             case "Easy":
@@ -131,20 +141,19 @@ public class SudokuController implements Initializable {
                                 break;
                         }
 
+                        currentDifficulty = difficulty;
+
                         // send information to the server if new Sudoku is requested and the current one is not solved
-                        if (!grid.isSolved()) {
-                            String line =
-                                    "Username: " + header.getUsername() + ", Time: " + header.getElapsedTime() + ", " +
-                                            "Difficulty: " + header.getDifficultyLabel() + ", Not Solved";
+                        if (unfinished != null) {
                             try {
-                                serverObject.writeToFile(line);
+                                serverObject.submitResult(unfinished);
                             } catch (Exception e) {
                                 e.printStackTrace();
                             }
                         }
 
                         try {
-                            int newSudokuGrid[][] = serverObject.generateSudoku(difficulty);
+                            int newSudokuGrid[][] = serverObject.generateSudokuBoard(difficulty).toGrid();
                             Platform.runLater(() -> {
                                 grid.loadGrid(newSudokuGrid);
                                 grid.removeAllBackgrounds(true);
@@ -177,6 +186,11 @@ public class SudokuController implements Initializable {
         return difficultyMenu;
     }
 
+    private GameResult createResult(GameResult.Outcome outcome) {
+        return new GameResult(header.getUsername(), GameResult.parseElapsedTime(header.getElapsedTime()),
+                currentDifficulty, outcome);
+    }
+
     private void createControlPanel(DifficultyMenu difficultyMenu) {
         controlPanel = new ControlPanel(difficultyMenu, new Callback() {
 
@@ -208,11 +222,8 @@ public class SudokuController implements Initializable {
             @Override
             public void solveCall() {
                 if(!grid.isSolved()) {
-                    String line =
-                            "Username: " + header.getUsername() + ", Time: " + header.getElapsedTime() + ", " +
-                                    "Difficulty: " + header.getDifficultyLabel() + ", Used Solver";
                     try {
-                        serverObject.writeToFile(line);
+                        serverObject.submitResult(createResult(GameResult.Outcome.USED_SOLVER));
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -220,7 +231,7 @@ public class SudokuController implements Initializable {
 
                 int board[][] = grid.getInitialGrid();
                 try {
-                    board = serverObject.solveSudoku(board);
+                    board = serverObject.solveSudoku(Board.fromGrid(board)).toGrid();
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -0,0 +1,104 @@
+package com.sudoku.server;
+
+import com.sudoku.ServerBusyException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many expensive requests are executed at the same time. A few more requests may wait for a short time,
+ * every other request is rejected right away, so a burst of bad requests can't take all threads and CPUs of the
+ * server.
+ * <p>
+ * Usage:
+ * <pre>
+ * admissionControl.acquire();
+ * try {
+ *     ...
+ * } finally {
+ *     admissionControl.release();
+ * }
+ * </pre>
+ */
+public class AdmissionControl {
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitMillis;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxConcurrent - number of requests which are executed at the same time.
+     * @param maxWaiting    - number of requests which can wait for a free slot.
+     * @param maxWaitMillis - how long a request waits for a free slot before it is rejected.
+     */
+    public AdmissionControl(int maxConcurrent, int maxWaiting, long maxWaitMillis) {
+        if (maxConcurrent < 1 || maxWaiting < 0 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Invalid admission limits");
+        }
+        // fair, so the waiting requests are admitted in order
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Waits for a free slot.
+     *
+     * @throws ServerBusyException if too many requests are already waiting or no slot was freed in time.
+     */
+    public void acquire() throws ServerBusyException {
+        if (permits.tryAcquire()) {
+            admitted.increment();
+            return;
+        }
+
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new ServerBusyException("Too many requests are waiting");
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new ServerBusyException("No free slot within " + maxWaitMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new ServerBusyException("Interrupted while waiting for a free slot");
+        } finally {
+            waiting.decrementAndGet();
+        }
+        admitted.increment();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return the number of requests which hold a slot.
+     */
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
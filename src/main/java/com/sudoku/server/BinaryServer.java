@@ -0,0 +1,357 @@
+package com.sudoku.server;
+
+import com.sudoku.BinaryProtocol;
+import com.sudoku.Board;
+import com.sudoku.DeadlineExceededException;
+import com.sudoku.LeaderboardEntry;
+import com.sudoku.ServerBusyException;
+import com.sudoku.ServerInterface;
+import com.sudoku.SizedBoard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the ServerInterface operations with the BinaryProtocol over non-blocking sockets.
+ * <p>
+ * One selector thread accepts the connections and does all reading and writing, so an idle client costs only its
+ * channel and a few small buffers instead of a thread. Complete requests are handled by a fixed pool of workers,
+ * because generating and solving can take milliseconds. A connection stops being read while its request is handled,
+ * which keeps the responses in order and lets TCP flow control slow down clients which send faster than they are
+ * served.
+ */
+public class BinaryServer implements Closeable {
+    private static final int BACKLOG = 1024;
+
+    private final ServerInterface server;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Thread selectorThread;
+
+    // connections with a new response, their interest is changed by the selector thread
+    private final Queue<Connection> responded = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    // requests which wait for a free worker
+    private final AtomicInteger queuedRequests = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * @param server  - the operations to serve.
+     * @param address - the address to listen on.
+     * @param workers - number of threads which handle the requests.
+     */
+    public BinaryServer(ServerInterface server, InetSocketAddress address, int workers) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        this.workers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "binary-server-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.selectorThread = new Thread(this::run, "binary-server-selector");
+    }
+
+    public void start() {
+        selectorThread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public int getQueuedRequestCount() {
+        return queuedRequests.get();
+    }
+
+    /**
+     * Stops accepting clients and closes every connection. Requests which are being handled are dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        try {
+            workers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+
+            Connection connection;
+            while ((connection = responded.poll()) != null) {
+                if (connection.key.isValid()) {
+                    connection.key.interestOps(SelectionKey.OP_WRITE);
+                }
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        ((Connection) key.attachment()).read();
+                    } else if (key.isWritable()) {
+                        ((Connection) key.attachment()).write();
+                    }
+                } catch (IOException e) {
+                    // the client went away or sent garbage, other clients are not affected
+                    if (key.attachment() != null) {
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.incrementAndGet();
+        }
+    }
+
+    /**
+     * Executes one request.
+     *
+     * @return the whole response frame, including its length.
+     */
+    private ByteBuffer handle(byte request[]) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0);
+            out.writeByte(BinaryProtocol.STATUS_OK);
+            execute(new DataInputStream(new ByteArrayInputStream(request)), out);
+        } catch (IllegalArgumentException | EOFException | InvalidObjectException e) {
+            // a truncated request or a board with invalid cells
+            bytes.reset();
+            writeError(out, BinaryProtocol.STATUS_INVALID_ARGUMENT, e);
+        } catch (ServerBusyException e) {
+            bytes.reset();
+            writeError(out, BinaryProtocol.STATUS_BUSY, e);
+        } catch (DeadlineExceededException e) {
+            bytes.reset();
+            writeError(out, BinaryProtocol.STATUS_DEADLINE_EXCEEDED, e);
+        } catch (Exception e) {
+            bytes.reset();
+            writeError(out, BinaryProtocol.STATUS_ERROR, e);
+        }
+
+        ByteBuffer response = ByteBuffer.wrap(bytes.toByteArray());
+        response.putInt(0, response.remaining() - Integer.BYTES);
+        return response;
+    }
+
+    private void execute(DataInputStream in, DataOutputStream out) throws IOException {
+        byte operation = in.readByte();
+        switch (operation) {
+            case BinaryProtocol.GENERATE_BOARD:
+                server.generateSudokuBoard(BinaryProtocol.readDifficulty(in)).write(out);
+                break;
+            case BinaryProtocol.GENERATE_BATCH:
+                server.generateBatch(BinaryProtocol.readDifficulty(in), in.readInt()).write(out);
+                break;
+            case BinaryProtocol.SOLVE_BOARD:
+                server.solveSudoku(Board.read(in)).write(out);
+                break;
+            case BinaryProtocol.SOLVE_WITH_ENGINE:
+                SolverEngine engine = BinaryProtocol.readEngine(in);
+                Board.fromGrid(server.solveSudoku(Board.read(in).toGrid(), engine)).write(out);
+                break;
+            case BinaryProtocol.WRITE_TO_FILE:
+                server.writeToFile(in.readUTF());
+                break;
+            case BinaryProtocol.SUBMIT_RESULT:
+                server.submitResult(BinaryProtocol.readResult(in));
+                break;
+            case BinaryProtocol.GET_TOP_TIMES:
+                List<LeaderboardEntry> entries = server.getTopTimes(BinaryProtocol.readDifficulty(in), in.readInt());
+                out.writeInt(entries.size());
+                for (LeaderboardEntry entry : entries) {
+                    out.writeUTF(entry.getUsername());
+                    out.writeLong(entry.getElapsedSeconds());
+                }
+                break;
+            case BinaryProtocol.GET_USER_STATS:
+                BinaryProtocol.writeUserStats(out, server.getUserStats(in.readUTF()));
+                break;
+            case BinaryProtocol.SOLVE:
+                BinaryProtocol.writeSolveResult(out, server.solve(Board.read(in)));
+                break;
+            case BinaryProtocol.GENERATE_SIZED_BOARD:
+                int size = in.readInt();
+                server.generateSudokuBoard(size, BinaryProtocol.readDifficulty(in)).write(out);
+                break;
+            case BinaryProtocol.SOLVE_SIZED_BOARD:
+                server.solveSudoku(SizedBoard.read(in)).write(out);
+                break;
+            case BinaryProtocol.GENERATE_SEEDED_BOARD:
+                GenerateSudoku.Difficulty difficulty = BinaryProtocol.readDifficulty(in);
+                server.generateSudokuBoard(difficulty, in.readLong()).write(out);
+                break;
+            case BinaryProtocol.GET_DAILY_BOARD:
+                server.getDailySudoku(BinaryProtocol.readDifficulty(in)).write(out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private static void writeError(DataOutputStream out, byte status, Exception e) {
+        try {
+            out.writeInt(0);
+            out.writeByte(status);
+            out.writeUTF(String.valueOf(e.getMessage()));
+        } catch (IOException impossible) {
+            // a ByteArrayOutputStream never fails
+            throw new IllegalStateException(impossible);
+        }
+    }
+
+    /**
+     * The state of one client. It is only touched by the selector thread, except for the response which a worker
+     * hands over through the responded queue.
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        private ByteBuffer body;
+        private final Queue<ByteBuffer> responses = new ArrayDeque<>(1);
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (body == null) {
+                if (channel.read(header) == -1) {
+                    close();
+                    return;
+                }
+                if (header.hasRemaining()) {
+                    return;
+                }
+                int length = header.getInt(0);
+                if (length < 1 || length > BinaryProtocol.MAX_REQUEST_SIZE) {
+                    throw new IOException("Invalid request length " + length);
+                }
+                body = ByteBuffer.allocate(length);
+            }
+
+            if (channel.read(body) == -1) {
+                close();
+                return;
+            }
+            if (body.hasRemaining()) {
+                return;
+            }
+
+            byte request[] = body.array();
+            header.clear();
+            body = null;
+            // nothing more is read until the response is sent
+            key.interestOps(0);
+            queuedRequests.incrementAndGet();
+            workers.execute(() -> {
+                queuedRequests.decrementAndGet();
+                ByteBuffer response = handle(request);
+                synchronized (responses) {
+                    responses.add(response);
+                }
+                responded.add(this);
+                selector.wakeup();
+            });
+        }
+
+        void write() throws IOException {
+            synchronized (responses) {
+                while (!responses.isEmpty()) {
+                    ByteBuffer response = responses.peek();
+                    channel.write(response);
+                    if (response.hasRemaining()) {
+                        return;
+                    }
+                    responses.remove();
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        void close() {
+            if (!channel.isOpen()) {
+                return;
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            connections.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.sudoku.server;
+
+/**
+ * Sudoku solver which keeps the used digits of every row, column and sector as bitmasks, so checking whether a
+ * number can be placed costs a few bit operations instead of scanning 27 cells. Before every branch the board is
+ * reduced with naked and hidden singles, and the search branches on the empty cell with the fewest candidates.
+ * <p>
+ * All state lives in preallocated arrays, so one instance can be reused for many boards. Instances are not thread
+ * safe.
+ */
+public class BitmaskSolver implements SudokuSolver {
+    private static final int GRID_SIZE = 9;
+    private static final int CELLS = GRID_SIZE * GRID_SIZE;
+    private static final int ALL_DIGITS = (1 << GRID_SIZE) - 1;
+
+    // the lookup tables are shared with the other engines of the package
+    static final int ROW_OF[] = new int[CELLS];
+    static final int COLUMN_OF[] = new int[CELLS];
+    static final int SECTOR_OF[] = new int[CELLS];
+    // every row, column and sector as a list of cell indexes
+    static final int UNITS[][] = new int[3 * GRID_SIZE][GRID_SIZE];
+
+    static {
+        for (int i = 0; i < CELLS; i += 1) {
+            int row = i / GRID_SIZE;
+            int column = i % GRID_SIZE;
+            int sector = (row / 3) * 3 + column / 3;
+
+            ROW_OF[i] = row;
+            COLUMN_OF[i] = column;
+            SECTOR_OF[i] = sector;
+
+            UNITS[row][column] = i;
+            UNITS[GRID_SIZE + column][row] = i;
+            UNITS[2 * GRID_SIZE + sector][(row % 3) * 3 + column % 3] = i;
+        }
+    }
+
+    private final int cells[] = new int[CELLS];
+    private final int rows[] = new int[GRID_SIZE];
+    private final int columns[] = new int[GRID_SIZE];
+    private final int sectors[] = new int[GRID_SIZE];
+
+    // cells placed during the search, so they can be taken back when backtracking
+    private final int trail[] = new int[CELLS];
+    private int trailSize;
+
+    private final int solution[] = new int[CELLS];
+    private int solutionCount;
+    private int limit;
+
+    // a value which the search may not place in a cell, see hasSolutionWithout
+    private int excludedCell = -1;
+    private int excludedBit;
+
+    private SearchCancellation cancellation;
+    private long nodes;
+
+    @Override
+    public boolean solve(int grid[][]) {
+        if (countSolutions(grid, 1) == 0) {
+            return false;
+        }
+        for (int i = 0; i < CELLS; i += 1) {
+            grid[i / GRID_SIZE][i % GRID_SIZE] = solution[i];
+        }
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int grid[][], int limit) {
+        if (!load(grid)) {
+            return 0;
+        }
+        return countSolutions(limit);
+    }
+
+    public boolean hasUniqueSolution(int grid[][]) {
+        return countSolutions(grid, 2) == 1;
+    }
+
+    /**
+     * Checks the loaded board. The search stops at the second solution and leaves the board as it was, so clues can
+     * be changed with setCell and clearCell and the board checked again without reloading it.
+     */
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * Checks whether the loaded board has a solution with another value in the empty cell. If the board had a unique
+     * solution with the value in the cell before it was cleared, this proves that it is still unique with a single
+     * search, which stops at the first solution and usually fails after a few nodes. The board is left as it was.
+     *
+     * @param value - the value of the cell in the known solution.
+     */
+    public boolean hasSolutionWithout(int row, int column, int value) {
+        excludedCell = row * GRID_SIZE + column;
+        excludedBit = 1 << (value - 1);
+        boolean found = countSolutions(1) > 0;
+        excludedCell = -1;
+        return found;
+    }
+
+    @Override
+    public void setCancellation(SearchCancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Copies the first solution found by the last search, row by row.
+     */
+    void copySolution(int target[]) {
+        System.arraycopy(solution, 0, target, 0, CELLS);
+    }
+
+    /**
+     * Places a clue on the loaded board. The value must be a candidate of the cell.
+     */
+    public void setCell(int row, int column, int value) {
+        set(row * GRID_SIZE + column, value);
+        // clues are not part of the search, so they are never taken back
+        trailSize -= 1;
+    }
+
+    /**
+     * Removes a clue from the loaded board.
+     */
+    public void clearCell(int row, int column) {
+        trail[trailSize++] = row * GRID_SIZE + column;
+        undo(trailSize - 1);
+    }
+
+    /**
+     * Loads the grid into the bitmasks.
+     *
+     * @return false if the grid is not 9x9, contains a value outside 0-9 or two equal digits share a unit.
+     */
+    public boolean load(int grid[][]) {
+        trailSize = 0;
+        for (int i = 0; i < GRID_SIZE; i += 1) {
+            rows[i] = 0;
+            columns[i] = 0;
+            sectors[i] = 0;
+        }
+
+        if (grid == null || grid.length != GRID_SIZE) {
+            return false;
+        }
+        for (int row = 0; row < GRID_SIZE; row += 1) {
+            if (grid[row] == null || grid[row].length != GRID_SIZE) {
+                return false;
+            }
+            for (int column = 0; column < GRID_SIZE; column += 1) {
+                int value = grid[row][column];
+                int cell = row * GRID_SIZE + column;
+                cells[cell] = 0;
+
+                if (value == 0) {
+                    continue;
+                }
+                if (value < 0 || value > GRID_SIZE || (candidates(cell) & (1 << (value - 1))) == 0) {
+                    return false;
+                }
+                set(cell, value);
+            }
+        }
+        // the clues are not part of the search, so they are never taken back
+        trailSize = 0;
+        return true;
+    }
+
+    private int countSolutions(int limit) {
+        this.limit = limit;
+        solutionCount = 0;
+        search();
+        return solutionCount;
+    }
+
+    /**
+     * @return true when the limit of solutions is reached and the search should stop.
+     */
+    private boolean search() {
+        nodes += 1;
+        if ((nodes & 0xFF) == 0 && cancellation != null && cancellation.isCancelled()) {
+            return true;
+        }
+
+        int mark = trailSize;
+
+        if (!propagate()) {
+            undo(mark);
+            return false;
+        }
+
+        // minimum remaining values: branch on the cell with the fewest candidates
+        int bestCell = -1;
+        int bestCount = GRID_SIZE + 1;
+        for (int i = 0; i < CELLS; i += 1) {
+            if (cells[i] == 0) {
+                int count = Integer.bitCount(candidates(i));
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestCell = i;
+                    if (count == 2) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (bestCell == -1) {
+            solutionCount += 1;
+            if (solutionCount == 1) {
+                System.arraycopy(cells, 0, solution, 0, CELLS);
+            }
+            undo(mark);
+            return solutionCount >= limit;
+        }
+
+        int branchMark = trailSize;
+        int candidates = candidates(bestCell);
+        while (candidates != 0) {
+            int bit = candidates & -candidates;
+            candidates ^= bit;
+
+            set(bestCell, Integer.numberOfTrailingZeros(bit) + 1);
+            if (search()) {
+                undo(mark);
+                return true;
+            }
+            undo(branchMark);
+        }
+        undo(mark);
+        return false;
+    }
+
+    /**
+     * Places naked singles(cells with a single candidate) and hidden singles(digits which fit in only one cell of
+     * a unit) until none are left.
+     *
+     * @return false if a contradiction was found.
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int i = 0; i < CELLS; i += 1) {
+                if (cells[i] == 0) {
+                    int candidates = candidates(i);
+                    if (candidates == 0) {
+                        return false;
+                    }
+                    if ((candidates & (candidates - 1)) == 0) {
+                        set(i, Integer.numberOfTrailingZeros(candidates) + 1);
+                        changed = true;
+                    }
+                }
+            }
+
+            for (int unit[] : UNITS) {
+                int placed = 0;
+                int seenOnce = 0;
+                int seenTwice = 0;
+                for (int cell : unit) {
+                    if (cells[cell] != 0) {
+                        placed |= 1 << (cells[cell] - 1);
+                    } else {
+                        int candidates = candidates(cell);
+                        seenTwice |= seenOnce & candidates;
+                        seenOnce |= candidates;
+                    }
+                }
+                if ((placed | seenOnce) != ALL_DIGITS) {
+                    return false;
+                }
+
+                int singles = seenOnce & ~seenTwice;
+                while (singles != 0) {
+                    int bit = singles & -singles;
+                    singles ^= bit;
+
+                    int target = -1;
+                    for (int cell : unit) {
+                        if (cells[cell] == 0 && (candidates(cell) & bit) != 0) {
+                            target = cell;
+                            break;
+                        }
+                    }
+                    if (target == -1) {
+                        // the only cell for this digit was taken by another hidden single
+                        return false;
+                    }
+                    set(target, Integer.numberOfTrailingZeros(bit) + 1);
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int candidates(int cell) {
+        int candidates = ~(rows[ROW_OF[cell]] | columns[COLUMN_OF[cell]] | sectors[SECTOR_OF[cell]]) & ALL_DIGITS;
+        return cell == excludedCell ? candidates & ~excludedBit : candidates;
+    }
+
+    private void set(int cell, int value) {
+        int bit = 1 << (value - 1);
+        cells[cell] = value;
+        rows[ROW_OF[cell]] |= bit;
+        columns[COLUMN_OF[cell]] |= bit;
+        sectors[SECTOR_OF[cell]] |= bit;
+        trail[trailSize++] = cell;
+    }
+
+    /**
+     * Takes back every cell placed after the mark.
+     */
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int cell = trail[--trailSize];
+            int bit = ~(1 << (cells[cell] - 1));
+            cells[cell] = 0;
+            rows[ROW_OF[cell]] &= bit;
+            columns[COLUMN_OF[cell]] &= bit;
+            sectors[SECTOR_OF[cell]] &= bit;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.sudoku.server;
+
+import com.sudoku.Board;
+import com.sudoku.SolveResult.Status;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line tool which solves a file of puzzles, one puzzle of 81 characters per line, and checks whether every
+ * puzzle has a unique solution.
+ * <p>
+ * The input is streamed in chunks of lines. Every chunk is solved by a pool of workers, and a writer thread writes the
+ * chunks in the order of the input as soon as they are done. At most two chunks per worker are in flight, so the
+ * memory stays the same for any size of input and the reader waits when the workers can't keep up.
+ * <p>
+ * Every output line is the puzzle, its status(SOLVED, MULTIPLE, NO_SOLUTION or INVALID_INPUT) and the first solution
+ * found, separated by commas.
+ */
+public class BulkSolver {
+    private static final int CHUNK_SIZE = 512;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final ThreadLocal<SudokuSolver> solvers;
+
+    private final long counts[] = new long[Status.values().length];
+
+    /**
+     * @param engine  - the engine which solves the puzzles.
+     * @param threads - number of workers.
+     */
+    public BulkSolver(SolverEngine engine, int threads) {
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.maxInFlight = 2 * threads;
+        this.solvers = ThreadLocal.withInitial(engine::newSolver);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: BulkSolver <input|-> <output|-> [engine] [threads]");
+            System.exit(1);
+        }
+        SolverEngine engine = args.length > 2 ? SolverEngine.valueOf(args[2]) : SolverEngine.BITMASK;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        BufferedReader reader = args[0].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), BUFFER_SIZE)
+                : new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(args[0])),
+                StandardCharsets.US_ASCII), BUFFER_SIZE);
+        Writer writer = args[1].equals("-")
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), BUFFER_SIZE)
+                : Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.US_ASCII);
+
+        BulkSolver bulkSolver = new BulkSolver(engine, threads);
+        long start = System.nanoTime();
+        try (reader; writer) {
+            bulkSolver.solve(reader, writer);
+        } finally {
+            bulkSolver.shutdown();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long total = 0;
+        for (Status status : Status.values()) {
+            System.err.println(status + ": " + bulkSolver.getCount(status));
+            total += bulkSolver.getCount(status);
+        }
+        System.err.printf("%d puzzles in %.2f s, %.0f puzzles/s%n", total, elapsedNanos / 1e9,
+                total * 1e9 / Math.max(elapsedNanos, 1));
+    }
+
+    /**
+     * Solves every line of the reader and writes the results in the same order.
+     */
+    public void solve(BufferedReader reader, Writer writer) throws IOException, InterruptedException {
+        BlockingQueue<Future<Chunk>> inFlight = new ArrayBlockingQueue<>(maxInFlight);
+        // tells the writer that the input has ended
+        FutureTask<Chunk> end = new FutureTask<>(() -> null);
+        end.run();
+
+        FutureTask<Void> output = new FutureTask<>(() -> {
+            Future<Chunk> next;
+            while ((next = inFlight.take()) != end) {
+                next.get().write(writer);
+            }
+            writer.flush();
+            return null;
+        });
+        Thread writerThread = new Thread(output, "bulk-solver-writer");
+        writerThread.start();
+
+        try {
+            Chunk chunk = new Chunk();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size == CHUNK_SIZE) {
+                    if (!enqueue(inFlight, workers.submit(chunk::solve), output)) {
+                        break;
+                    }
+                    chunk = new Chunk();
+                }
+            }
+            if (chunk.size > 0) {
+                enqueue(inFlight, workers.submit(chunk::solve), output);
+            }
+        } finally {
+            enqueue(inFlight, end, output);
+            writerThread.join();
+        }
+
+        try {
+            output.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Solving failed", e.getCause());
+        }
+    }
+
+    /**
+     * Waits until there is room in the queue.
+     *
+     * @return false if the writer has stopped because of an error, so nothing will take from the queue anymore.
+     */
+    private static boolean enqueue(BlockingQueue<Future<Chunk>> inFlight, Future<Chunk> chunk, Future<Void> output)
+            throws InterruptedException {
+        while (!inFlight.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (output.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized long getCount(Status status) {
+        return counts[status.ordinal()];
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private synchronized void count(long chunkCounts[]) {
+        for (int i = 0; i < counts.length; i += 1) {
+            counts[i] += chunkCounts[i];
+        }
+    }
+
+    private class Chunk {
+        private final String puzzles[] = new String[CHUNK_SIZE];
+        private final Status statuses[] = new Status[CHUNK_SIZE];
+        private final String solutions[] = new String[CHUNK_SIZE];
+        private int size;
+
+        void add(String puzzle) {
+            puzzles[size++] = puzzle;
+        }
+
+        Chunk solve() {
+            SudokuSolver solver = solvers.get();
+            long chunkCounts[] = new long[Status.values().length];
+
+            for (int i = 0; i < size; i += 1) {
+                Board board;
+                try {
+                    board = Board.parse(puzzles[i]);
+                } catch (IllegalArgumentException e) {
+                    board = null;
+                }
+                // conflicting clues are rejected without searching
+                if (board == null || GridValidator.validate(board) != null) {
+                    statuses[i] = Status.INVALID_INPUT;
+                    chunkCounts[Status.INVALID_INPUT.ordinal()] += 1;
+                    continue;
+                }
+                int grid[][] = board.toGrid();
+
+                int count = solver.countSolutions(grid, 2);
+                if (count == 0) {
+                    statuses[i] = Status.NO_SOLUTION;
+                } else {
+                    statuses[i] = count == 1 ? Status.SOLVED : Status.MULTIPLE;
+                    solutions[i] = solution(solver, grid);
+                }
+                chunkCounts[statuses[i].ordinal()] += 1;
+            }
+            count(chunkCounts);
+            return this;
+        }
+
+        /**
+         * The first solution of the last countSolutions call.
+         */
+        private String solution(SudokuSolver solver, int grid[][]) {
+            if (solver instanceof BitmaskSolver) {
+                // the bitmask solver keeps the solution it counted, so the puzzle doesn't have to be searched again
+                int cells[] = new int[grid.length * grid.length];
+                ((BitmaskSolver) solver).copySolution(cells);
+                StringBuilder builder = new StringBuilder(cells.length);
+                for (int value : cells) {
+                    builder.append((char) ('0' + value));
+                }
+                return builder.toString();
+            }
+            solver.solve(grid);
+            return Board.fromGrid(grid).toString();
+        }
+
+        void write(Writer writer) throws IOException {
+            for (int i = 0; i < size; i += 1) {
+                writer.write(puzzles[i]);
+                writer.write(',');
+                writer.write(statuses[i].name());
+                writer.write(',');
+                if (solutions[i] != null) {
+                    writer.write(solutions[i]);
+                }
+                writer.write('\n');
+            }
+        }
+    }
+}
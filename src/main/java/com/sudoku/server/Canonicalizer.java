@@ -0,0 +1,261 @@
+package com.sudoku.server;
+
+import com.sudoku.Board;
+
+import java.util.Random;
+
+/**
+ * Maps grids to a minimal representative under the symmetries of Sudoku, which keep a puzzle valid and its number of
+ * solutions unchanged: relabeling of the digits, permutation of the rows inside a band and of the bands, the same for
+ * columns and stacks, and transposition. Two puzzles are equivalent exactly when their canonical forms are equal.
+ * <p>
+ * The canonical form is the transformed grid which is the smallest when read row by row, with the digits relabeled
+ * in the order they first appear. For every transposition and column order the rows are chosen one by one, and a
+ * branch is dropped at the first cell which is bigger than in the best grid so far, so only a few of the
+ * 2 * 1296 * 1296 transformations are looked at completely.
+ */
+public final class Canonicalizer {
+    private static final int GRID_SIZE = 9;
+    private static final int CELLS = GRID_SIZE * GRID_SIZE;
+
+    // the 6 band orders times the 6 * 6 * 6 orders of the rows inside the bands
+    private static final int ORDERS[][] = new int[1296][];
+
+    static {
+        int permutations[][] = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+        int index = 0;
+        for (int bands[] : permutations) {
+            for (int first[] : permutations) {
+                for (int second[] : permutations) {
+                    for (int third[] : permutations) {
+                        int inside[][] = {first, second, third};
+                        int order[] = new int[GRID_SIZE];
+                        for (int i = 0; i < GRID_SIZE; i += 1) {
+                            order[i] = bands[i / 3] * 3 + inside[i / 3][i % 3];
+                        }
+                        ORDERS[index++] = order;
+                    }
+                }
+            }
+        }
+    }
+
+    private Canonicalizer() {
+    }
+
+    /**
+     * @return the canonical form of the grid and the transformation which produces it.
+     */
+    public static Canonical canonicalize(int grid[][]) {
+        Search search = new Search();
+
+        for (int transpose = 0; transpose < 2; transpose += 1) {
+            for (int columns[] : ORDERS) {
+                for (int row = 0; row < GRID_SIZE; row += 1) {
+                    for (int column = 0; column < GRID_SIZE; column += 1) {
+                        search.permuted[row][column] = transpose == 0 ? grid[row][columns[column]] :
+                                grid[columns[column]][row];
+                    }
+                }
+                if (search.run(0, 0, search.best == null)) {
+                    search.bestTranspose = transpose == 1;
+                    search.bestColumns = columns;
+                }
+            }
+        }
+
+        Transform transform = new Transform(search.bestTranspose, search.bestRows, search.bestColumns,
+                labelsInOrder(grid, search.bestTranspose, search.bestRows, search.bestColumns));
+        return new Canonical(transform.apply(grid), transform);
+    }
+
+    /**
+     * @return the canonical form of the grid, which is equal for all equivalent grids.
+     */
+    public static Board canonicalKey(int grid[][]) {
+        return canonicalize(grid).getBoard();
+    }
+
+    /**
+     * @return a random transformation, which maps every puzzle to an equivalent puzzle with the same difficulty.
+     */
+    public static Transform randomTransform(Random random) {
+        int digits[] = new int[GRID_SIZE + 1];
+        for (int i = 1; i <= GRID_SIZE; i += 1) {
+            digits[i] = i;
+        }
+        for (int i = GRID_SIZE; i > 1; i -= 1) {
+            int j = 1 + random.nextInt(i);
+            int swap = digits[i];
+            digits[i] = digits[j];
+            digits[j] = swap;
+        }
+        return new Transform(random.nextBoolean(), ORDERS[random.nextInt(ORDERS.length)],
+                ORDERS[random.nextInt(ORDERS.length)], digits);
+    }
+
+    /**
+     * Numbers the digits in the order they first appear in the transformed grid. Digits which are missing from the
+     * grid get the remaining labels, so the transformation also applies to the solution of a puzzle.
+     */
+    private static int[] labelsInOrder(int grid[][], boolean transpose, int rows[], int columns[]) {
+        int labels[] = new int[GRID_SIZE + 1];
+        int nextLabel = 1;
+        for (int i = 0; i < CELLS; i += 1) {
+            int row = rows[i / GRID_SIZE];
+            int column = columns[i % GRID_SIZE];
+            int value = transpose ? grid[column][row] : grid[row][column];
+            if (value != 0 && labels[value] == 0) {
+                labels[value] = nextLabel++;
+            }
+        }
+        for (int digit = 1; digit <= GRID_SIZE; digit += 1) {
+            if (labels[digit] == 0) {
+                labels[digit] = nextLabel++;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Depth first search over the row orders of one column order.
+     */
+    private static final class Search {
+        private final int permuted[][] = new int[GRID_SIZE][GRID_SIZE];
+        private final int rows[] = new int[GRID_SIZE];
+        private final int candidate[] = new int[CELLS];
+        // the labels given so far, per depth
+        private final int labels[][] = new int[GRID_SIZE + 1][GRID_SIZE + 1];
+        private final int nextLabel[] = new int[GRID_SIZE + 1];
+
+        private int best[];
+        private int bestRows[];
+        private int bestColumns[];
+        private boolean bestTranspose;
+
+        /**
+         * Chooses the source row of the output row depth. The first row of a band can come from any unused band, the
+         * other two from the rest of the same band.
+         *
+         * @param smaller - whether the rows chosen so far are already smaller than the best grid.
+         * @return true if a new best grid was found.
+         */
+        boolean run(int depth, int usedRows, boolean smaller) {
+            if (depth == GRID_SIZE) {
+                if (!smaller) {
+                    return false;
+                }
+                best = candidate.clone();
+                bestRows = rows.clone();
+                return true;
+            }
+
+            boolean updated = false;
+            for (int source = 0; source < GRID_SIZE; source += 1) {
+                if ((usedRows & (1 << source)) != 0) {
+                    continue;
+                }
+                if (depth % 3 == 0 ? (usedRows >> (source / 3 * 3) & 7) != 0 : source / 3 != rows[depth - 1] / 3) {
+                    continue;
+                }
+
+                System.arraycopy(labels[depth], 0, labels[depth + 1], 0, GRID_SIZE + 1);
+                nextLabel[depth + 1] = depth == 0 ? 1 : nextLabel[depth];
+                if (depth == 0) {
+                    for (int i = 1; i <= GRID_SIZE; i += 1) {
+                        labels[1][i] = 0;
+                    }
+                }
+
+                boolean rowSmaller = smaller;
+                boolean bigger = false;
+                for (int column = 0; column < GRID_SIZE; column += 1) {
+                    int value = permuted[source][column];
+                    if (value != 0) {
+                        if (labels[depth + 1][value] == 0) {
+                            labels[depth + 1][value] = nextLabel[depth + 1]++;
+                        }
+                        value = labels[depth + 1][value];
+                    }
+
+                    int cell = depth * GRID_SIZE + column;
+                    candidate[cell] = value;
+                    if (!rowSmaller) {
+                        if (value > best[cell]) {
+                            bigger = true;
+                            break;
+                        }
+                        if (value < best[cell]) {
+                            rowSmaller = true;
+                        }
+                    }
+                }
+                if (bigger) {
+                    continue;
+                }
+
+                rows[depth] = source;
+                if (run(depth + 1, usedRows | (1 << source), rowSmaller)) {
+                    // the rows chosen so far are now the prefix of the best grid
+                    updated = true;
+                    smaller = false;
+                }
+            }
+            return updated;
+        }
+    }
+
+    /**
+     * A symmetry of Sudoku. Row i of the result is row rows[i] of the grid(or of its transposition), column j is
+     * column columns[j], and every digit d is replaced by digits[d].
+     */
+    public static final class Transform {
+        private final boolean transpose;
+        private final int rows[];
+        private final int columns[];
+        private final int digits[];
+
+        private Transform(boolean transpose, int rows[], int columns[], int digits[]) {
+            this.transpose = transpose;
+            this.rows = rows;
+            this.columns = columns;
+            this.digits = digits;
+        }
+
+        public int[][] apply(int grid[][]) {
+            int result[][] = new int[GRID_SIZE][GRID_SIZE];
+            for (int row = 0; row < GRID_SIZE; row += 1) {
+                for (int column = 0; column < GRID_SIZE; column += 1) {
+                    int value = transpose ? grid[columns[column]][rows[row]] : grid[rows[row]][columns[column]];
+                    result[row][column] = digits[value];
+                }
+            }
+            return result;
+        }
+
+        public Board apply(Board board) {
+            return Board.fromGrid(apply(board.toGrid()));
+        }
+    }
+
+    /**
+     * The canonical form of a grid and the transformation from the grid to it.
+     */
+    public static final class Canonical {
+        private final int grid[][];
+        private final Transform transform;
+
+        private Canonical(int grid[][], Transform transform) {
+            this.grid = grid;
+            this.transform = transform;
+        }
+
+        public Board getBoard() {
+            return Board.fromGrid(grid);
+        }
+
+        public Transform getTransform() {
+            return transform;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.sudoku.server;
+
+import java.util.Arrays;
+
+/**
+ * A rule of a Sudoku variant on top of the rows and columns, which every board has. A rule only describes groups of
+ * cells. The ConstraintModel compiles all rules into peer, unit and cage tables once, so the solvers check a variant
+ * with the same lookups as the classic rules. The rules of the shipped variants are created with Constraints.
+ */
+public interface Constraint {
+    /**
+     * @param size - the number of rows of the board.
+     * @return groups of size cells which contain every digit exactly once, like the boxes.
+     */
+    default int[][] getUnits(int size) {
+        return new int[0][];
+    }
+
+    /**
+     * @param size - the number of rows of the board.
+     * @return groups of cells with different digits which add up to a sum.
+     */
+    default Cage[] getCages(int size) {
+        return new Cage[0];
+    }
+
+    /**
+     * Cells, row by row, whose digits are all different and add up to the sum, as in Killer Sudoku.
+     */
+    final class Cage {
+        private final int cells[];
+        private final int sum;
+
+        public Cage(int sum, int... cells) {
+            if (cells.length == 0 || sum < 1) {
+                throw new IllegalArgumentException("A cage needs cells and a positive sum");
+            }
+            this.cells = cells.clone();
+            this.sum = sum;
+        }
+
+        public int[] getCells() {
+            return cells.clone();
+        }
+
+        public int getSum() {
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            return sum + "=" + Arrays.toString(cells);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.sudoku.server;
+
+import com.sudoku.SizedBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The rules of a board compiled into index tables: the units(rows, columns and the groups of the constraints, which
+ * contain every digit once), the peers of every cell(the cells which can't have the same digit) and the cages with
+ * their sums. The tables are built once, so a solver pays the same per placement for any combination of rules.
+ * <p>
+ * Models are immutable and can be shared between threads.
+ */
+public final class ConstraintModel {
+    private static final ConstraintModel CLASSIC[] = new ConstraintModel[SizedBoard.MAX_BOX_SIZE + 1];
+
+    static {
+        for (int boxSize = SizedBoard.MIN_BOX_SIZE; boxSize <= SizedBoard.MAX_BOX_SIZE; boxSize += 1) {
+            CLASSIC[boxSize] = new ConstraintModel(boxSize * boxSize, true,
+                    Collections.singletonList(Constraints.boxes()));
+        }
+    }
+
+    private final int size;
+    private final boolean classic;
+    private final List<Constraint> constraints;
+
+    private final int units[][];
+    private final int peers[][];
+    private final int cages[][];
+    private final int cageSums[];
+
+    /**
+     * @param size        - the number of rows of the board, at most 25.
+     * @param constraints - the rules on top of the rows and columns.
+     * @throws IllegalArgumentException if a rule doesn't fit the board or two cages share a cell.
+     */
+    public ConstraintModel(int size, Constraint... constraints) {
+        this(size, false, Arrays.asList(constraints.clone()));
+    }
+
+    private ConstraintModel(int size, boolean classic, List<Constraint> constraints) {
+        if (size < 1 || size > SizedBoard.MAX_BOX_SIZE * SizedBoard.MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size " + size);
+        }
+        this.size = size;
+        this.classic = classic;
+        this.constraints = constraints;
+        int cellCount = size * size;
+
+        List<int[]> unitList = new ArrayList<>();
+        for (int row = 0; row < size; row += 1) {
+            int unit[] = new int[size];
+            for (int column = 0; column < size; column += 1) {
+                unit[column] = row * size + column;
+            }
+            unitList.add(unit);
+        }
+        for (int column = 0; column < size; column += 1) {
+            int unit[] = new int[size];
+            for (int row = 0; row < size; row += 1) {
+                unit[row] = row * size + column;
+            }
+            unitList.add(unit);
+        }
+
+        List<Constraint.Cage> cageList = new ArrayList<>();
+        for (Constraint constraint : constraints) {
+            for (int unit[] : constraint.getUnits(size)) {
+                checkCells(unit, cellCount);
+                if (unit.length != size) {
+                    throw new IllegalArgumentException("A unit must have " + size + " cells");
+                }
+                unitList.add(unit.clone());
+            }
+            cageList.addAll(Arrays.asList(constraint.getCages(size)));
+        }
+        this.units = unitList.toArray(new int[0][]);
+
+        this.cages = new int[cageList.size()][];
+        this.cageSums = new int[cageList.size()];
+        boolean inCage[] = new boolean[cellCount];
+        for (int i = 0; i < cages.length; i += 1) {
+            cages[i] = cageList.get(i).getCells();
+            cageSums[i] = cageList.get(i).getSum();
+            checkCells(cages[i], cellCount);
+            if (cages[i].length > size) {
+                throw new IllegalArgumentException("A cage can't have more than " + size + " cells");
+            }
+            for (int cell : cages[i]) {
+                if (inCage[cell]) {
+                    throw new IllegalArgumentException("Cell " + cell + " is in two cages");
+                }
+                inCage[cell] = true;
+            }
+        }
+
+        // the peers are the other cells of every unit and cage of the cell
+        boolean isPeer[][] = new boolean[cellCount][cellCount];
+        for (int unit[] : units) {
+            markPeers(isPeer, unit);
+        }
+        for (int cage[] : cages) {
+            markPeers(isPeer, cage);
+        }
+        this.peers = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell += 1) {
+            int count = 0;
+            int cellPeers[] = new int[cellCount];
+            for (int peer = 0; peer < cellCount; peer += 1) {
+                if (isPeer[cell][peer]) {
+                    cellPeers[count++] = peer;
+                }
+            }
+            peers[cell] = Arrays.copyOf(cellPeers, count);
+        }
+    }
+
+    /**
+     * @return the rows, columns and boxes of a classic board, shared by all callers.
+     */
+    public static ConstraintModel classic(int boxSize) {
+        if (boxSize < SizedBoard.MIN_BOX_SIZE || boxSize > SizedBoard.MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Unsupported box size " + boxSize);
+        }
+        return CLASSIC[boxSize];
+    }
+
+    /**
+     * @return a model with the rules of this one and the given rule.
+     */
+    public ConstraintModel with(Constraint constraint) {
+        List<Constraint> combined = new ArrayList<>(constraints);
+        combined.add(constraint);
+        return new ConstraintModel(size, false, combined);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return true if the model has only the rows, columns and boxes, so every classic solution is valid.
+     */
+    boolean isClassic() {
+        return classic;
+    }
+
+    int[][] getUnits() {
+        return units;
+    }
+
+    int[][] getPeers() {
+        return peers;
+    }
+
+    int[][] getCages() {
+        return cages;
+    }
+
+    int[] getCageSums() {
+        return cageSums;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size + " " + constraints;
+    }
+
+    private static void checkCells(int cells[], int cellCount) {
+        boolean seen[] = new boolean[cellCount];
+        for (int cell : cells) {
+            if (cell < 0 || cell >= cellCount || seen[cell]) {
+                throw new IllegalArgumentException("Invalid or repeated cell " + cell);
+            }
+            seen[cell] = true;
+        }
+    }
+
+    private static void markPeers(boolean isPeer[][], int group[]) {
+        for (int cell : group) {
+            for (int other : group) {
+                isPeer[cell][other] = cell != other;
+            }
+        }
+    }
+}
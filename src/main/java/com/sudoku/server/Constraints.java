@@ -0,0 +1,131 @@
+package com.sudoku.server;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rules of the supported variants.
+ */
+public final class Constraints {
+    private Constraints() {
+    }
+
+    /**
+     * @return the boxes of classic Sudoku. The size of the board must be a square.
+     */
+    public static Constraint boxes() {
+        return new Boxes();
+    }
+
+    /**
+     * @return both main diagonals, which contain every digit once(Sudoku X).
+     */
+    public static Constraint diagonals() {
+        return new Diagonals();
+    }
+
+    /**
+     * Irregular regions which are used instead of the boxes(Jigsaw Sudoku).
+     *
+     * @param regionOf - the region(0 to size - 1) of every cell, row by row. Every region must have size cells.
+     */
+    public static Constraint jigsaw(int regionOf[]) {
+        return new Jigsaw(regionOf.clone());
+    }
+
+    /**
+     * @return the cages of Killer Sudoku.
+     */
+    public static Constraint killer(List<Constraint.Cage> cages) {
+        return new Killer(cages.toArray(new Constraint.Cage[0]));
+    }
+
+    private static class Boxes implements Constraint {
+        @Override
+        public int[][] getUnits(int size) {
+            int boxSize = (int) Math.round(Math.sqrt(size));
+            if (boxSize * boxSize != size) {
+                throw new IllegalArgumentException("A board with " + size + " rows has no square boxes");
+            }
+            int units[][] = new int[size][size];
+            for (int cell = 0; cell < size * size; cell += 1) {
+                int row = cell / size;
+                int column = cell % size;
+                int box = (row / boxSize) * boxSize + column / boxSize;
+                units[box][(row % boxSize) * boxSize + column % boxSize] = cell;
+            }
+            return units;
+        }
+
+        @Override
+        public String toString() {
+            return "boxes";
+        }
+    }
+
+    private static class Diagonals implements Constraint {
+        @Override
+        public int[][] getUnits(int size) {
+            int units[][] = new int[2][size];
+            for (int i = 0; i < size; i += 1) {
+                units[0][i] = i * size + i;
+                units[1][i] = i * size + size - 1 - i;
+            }
+            return units;
+        }
+
+        @Override
+        public String toString() {
+            return "diagonals";
+        }
+    }
+
+    private static class Jigsaw implements Constraint {
+        private final int regionOf[];
+
+        Jigsaw(int regionOf[]) {
+            this.regionOf = regionOf;
+        }
+
+        @Override
+        public int[][] getUnits(int size) {
+            if (regionOf.length != size * size) {
+                throw new IllegalArgumentException("The regions must have " + size * size + " cells");
+            }
+            int units[][] = new int[size][size];
+            int filled[] = new int[size];
+            for (int cell = 0; cell < regionOf.length; cell += 1) {
+                int region = regionOf[cell];
+                if (region < 0 || region >= size || filled[region] == size) {
+                    throw new IllegalArgumentException("Region " + region + " of cell " + cell + " is invalid or has " +
+                            "more than " + size + " cells");
+                }
+                units[region][filled[region]++] = cell;
+            }
+            return units;
+        }
+
+        @Override
+        public String toString() {
+            return "jigsaw" + Arrays.toString(regionOf);
+        }
+    }
+
+    private static class Killer implements Constraint {
+        private final Constraint.Cage cages[];
+
+        Killer(Constraint.Cage cages[]) {
+            this.cages = cages;
+        }
+
+        @Override
+        public Constraint.Cage[] getCages(int size) {
+            return cages;
+        }
+
+        @Override
+        public String toString() {
+            return "killer" + Arrays.toString(cages);
+        }
+    }
+}
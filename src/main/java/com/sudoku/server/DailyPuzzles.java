@@ -0,0 +1,128 @@
+package com.sudoku.server;
+
+import com.sudoku.ServerBusyException;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The puzzle of the day for every Difficulty. A puzzle is generated from a seed made of the date and the difficulty,
+ * so it is the same for every client and after a restart. It is generated by the first request of the day, through
+ * the admission control, and then served from memory. Requests which arrive during the generation wait for it.
+ */
+public class DailyPuzzles {
+    private final Clock clock;
+    private final AdmissionControl admissionControl;
+    private final ServerMetrics metrics;
+    private final ConcurrentMap<Key, FutureTask<Puzzle>> puzzles = new ConcurrentHashMap<>();
+
+    /**
+     * @param clock            - decides when a day starts, usually Clock.systemUTC().
+     * @param admissionControl - limits the generations together with the other expensive requests.
+     * @param metrics          - records the time and the search work of every generated puzzle.
+     */
+    public DailyPuzzles(Clock clock, AdmissionControl admissionControl, ServerMetrics metrics) {
+        this.clock = clock;
+        this.admissionControl = admissionControl;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @throws ServerBusyException if the puzzle has to be generated and the server is too busy.
+     */
+    public Puzzle get(GenerateSudoku.Difficulty difficulty) throws ServerBusyException {
+        LocalDate today = LocalDate.now(clock);
+        Key key = new Key(today, difficulty);
+        FutureTask<Puzzle> task = puzzles.get(key);
+        if (task == null) {
+            // only a cheap task is created in the map, the generation runs outside of it
+            task = puzzles.computeIfAbsent(key, k -> new FutureTask<>(() -> generate(today, difficulty)));
+            puzzles.keySet().removeIf(old -> old.date.isBefore(today));
+        }
+        // the first caller generates the puzzle, the others return right away and wait in getResult
+        task.run();
+        return getResult(key, task);
+    }
+
+    /**
+     * @return the seed of the puzzle of the day, different for every difficulty.
+     */
+    public static long seedOf(LocalDate date, GenerateSudoku.Difficulty difficulty) {
+        return date.toEpochDay() * GenerateSudoku.Difficulty.values().length + difficulty.ordinal();
+    }
+
+    private Puzzle generate(LocalDate date, GenerateSudoku.Difficulty difficulty) throws ServerBusyException {
+        admissionControl.acquire();
+        try {
+            GenerateSudoku generateSudoku = new GenerateSudoku();
+            long start = System.nanoTime();
+
+            Puzzle puzzle = generateSudoku.generatePuzzle(difficulty, false, seedOf(date, difficulty));
+            metrics.recordGeneration(difficulty, System.nanoTime() - start, generateSudoku.getUniquenessChecks(),
+                    generateSudoku.getNodes());
+            return puzzle;
+        } finally {
+            admissionControl.release();
+        }
+    }
+
+    private Puzzle getResult(Key key, FutureTask<Puzzle> task) throws ServerBusyException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    // the puzzle is usually ready within milliseconds, so the wait isn't given up
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // a failed generation is not kept, so the next request tries again
+                    puzzles.remove(key, task);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof ServerBusyException) {
+                        throw new ServerBusyException(cause.getMessage());
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw (Error) cause;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class Key {
+        private final LocalDate date;
+        private final GenerateSudoku.Difficulty difficulty;
+
+        Key(LocalDate date, GenerateSudoku.Difficulty difficulty) {
+            this.date = date;
+            this.difficulty = difficulty;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return date.equals(other.date) && difficulty == other.difficulty;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * date.hashCode() + difficulty.hashCode();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.sudoku.server;
+
+/**
+ * Sudoku solver based on Knuth's Algorithm X with Dancing Links. The Sudoku is modelled as an exact cover problem
+ * with 729 rows(every digit in every cell) and 324 columns(every cell, and every digit in every row, column and
+ * sector must be covered exactly once). The search always branches on the column with the fewest rows left, which
+ * keeps it fast on nearly empty and pathological grids.
+ * <p>
+ * The links are kept in int arrays instead of node objects. The matrix is built once per instance and restored
+ * after every search, so one instance can be reused for many boards. Instances are not thread safe.
+ */
+public class DancingLinksSolver implements SudokuSolver {
+    private static final int GRID_SIZE = 9;
+    private static final int CELLS = GRID_SIZE * GRID_SIZE;
+    private static final int COLUMNS = 4 * CELLS;
+    private static final int ROWS = CELLS * GRID_SIZE;
+    // node 0 is the root, nodes 1..COLUMNS are the column headers and every row has 4 nodes after them
+    private static final int NODES = 1 + COLUMNS + 4 * ROWS;
+
+    private final int left[] = new int[NODES];
+    private final int right[] = new int[NODES];
+    private final int up[] = new int[NODES];
+    private final int down[] = new int[NODES];
+    private final int column[] = new int[NODES];
+    private final int row[] = new int[NODES];
+    private final int size[] = new int[COLUMNS + 1];
+    // first node of every row, so the clues can be selected directly
+    private final int rowStart[] = new int[ROWS];
+
+    private final int clues[] = new int[CELLS];
+    private int clueCount;
+    private final int selected[] = new int[CELLS];
+
+    private final int solution[] = new int[CELLS];
+    private int solutionCount;
+    private int limit;
+
+    private SearchCancellation cancellation;
+    private long nodes;
+
+    public DancingLinksSolver() {
+        for (int i = 0; i <= COLUMNS; i += 1) {
+            left[i] = i - 1;
+            right[i] = i + 1;
+            up[i] = i;
+            down[i] = i;
+            column[i] = i;
+        }
+        left[0] = COLUMNS;
+        right[COLUMNS] = 0;
+
+        int node = COLUMNS + 1;
+        for (int r = 0; r < ROWS; r += 1) {
+            int cell = r / GRID_SIZE;
+            int digit = r % GRID_SIZE;
+            int cellRow = cell / GRID_SIZE;
+            int cellColumn = cell % GRID_SIZE;
+            int sector = (cellRow / 3) * 3 + cellColumn / 3;
+
+            int constraints[] = {
+                    cell,
+                    CELLS + cellRow * GRID_SIZE + digit,
+                    2 * CELLS + cellColumn * GRID_SIZE + digit,
+                    3 * CELLS + sector * GRID_SIZE + digit
+            };
+
+            rowStart[r] = node;
+            for (int i = 0; i < constraints.length; i += 1) {
+                int header = constraints[i] + 1;
+                int current = node + i;
+
+                column[current] = header;
+                row[current] = r;
+
+                up[current] = up[header];
+                down[current] = header;
+                down[up[header]] = current;
+                up[header] = current;
+                size[header] += 1;
+
+                left[current] = i == 0 ? node + constraints.length - 1 : current - 1;
+                right[current] = i == constraints.length - 1 ? node : current + 1;
+            }
+            node += constraints.length;
+        }
+    }
+
+    @Override
+    public boolean solve(int grid[][]) {
+        if (countSolutions(grid, 1) == 0) {
+            return false;
+        }
+        for (int i = 0; i < CELLS; i += 1) {
+            grid[i / GRID_SIZE][i % GRID_SIZE] = solution[i];
+        }
+        return true;
+    }
+
+    @Override
+    public void setCancellation(SearchCancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public int countSolutions(int grid[][], int limit) {
+        this.limit = limit;
+        solutionCount = 0;
+
+        if (selectClues(grid)) {
+            search(0);
+        }
+        unselectClues();
+        return solutionCount;
+    }
+
+    /**
+     * Removes the rows of the clues from the matrix.
+     *
+     * @return false if the grid is not 9x9, contains a value outside 0-9 or two clues cover the same column.
+     */
+    private boolean selectClues(int grid[][]) {
+        clueCount = 0;
+        if (grid == null || grid.length != GRID_SIZE) {
+            return false;
+        }
+        for (int r = 0; r < GRID_SIZE; r += 1) {
+            if (grid[r] == null || grid[r].length != GRID_SIZE) {
+                return false;
+            }
+            for (int c = 0; c < GRID_SIZE; c += 1) {
+                int value = grid[r][c];
+                if (value == 0) {
+                    continue;
+                }
+                if (value < 0 || value > GRID_SIZE) {
+                    return false;
+                }
+
+                int node = rowStart[(r * GRID_SIZE + c) * GRID_SIZE + value - 1];
+                // a covered column means another clue already satisfies one of the constraints
+                int current = node;
+                do {
+                    int header = column[current];
+                    if (left[right[header]] != header) {
+                        return false;
+                    }
+                    current = right[current];
+                } while (current != node);
+
+                current = node;
+                do {
+                    cover(column[current]);
+                    current = right[current];
+                } while (current != node);
+                clues[clueCount++] = node;
+            }
+        }
+        return true;
+    }
+
+    private void unselectClues() {
+        while (clueCount > 0) {
+            int node = clues[--clueCount];
+            int current = left[node];
+            do {
+                uncover(column[current]);
+                current = left[current];
+            } while (current != left[node]);
+        }
+    }
+
+    /**
+     * @return true when the limit of solutions is reached and the search should stop.
+     */
+    private boolean search(int depth) {
+        nodes += 1;
+        if ((nodes & 0xFF) == 0 && cancellation != null && cancellation.isCancelled()) {
+            return true;
+        }
+
+        if (right[0] == 0) {
+            solutionCount += 1;
+            if (solutionCount == 1) {
+                saveSolution(depth);
+            }
+            return solutionCount >= limit;
+        }
+
+        int best = right[0];
+        for (int header = right[best]; header != 0; header = right[header]) {
+            if (size[header] < size[best]) {
+                best = header;
+            }
+        }
+        if (size[best] == 0) {
+            return false;
+        }
+
+        cover(best);
+        for (int node = down[best]; node != best; node = down[node]) {
+            selected[depth] = node;
+            for (int current = right[node]; current != node; current = right[current]) {
+                cover(column[current]);
+            }
+
+            boolean done = search(depth + 1);
+
+            for (int current = left[node]; current != node; current = left[current]) {
+                uncover(column[current]);
+            }
+            if (done) {
+                uncover(best);
+                return true;
+            }
+        }
+        uncover(best);
+        return false;
+    }
+
+    private void saveSolution(int depth) {
+        for (int i = 0; i < clueCount; i += 1) {
+            int r = row[clues[i]];
+            solution[r / GRID_SIZE] = r % GRID_SIZE + 1;
+        }
+        for (int i = 0; i < depth; i += 1) {
+            int r = row[selected[i]];
+            solution[r / GRID_SIZE] = r % GRID_SIZE + 1;
+        }
+    }
+
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]] -= 1;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]] += 1;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+}
@@ -0,0 +1,240 @@
+package com.sudoku.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Appends game events to the log file from a single writer thread. Callers only put the line in a bounded queue;
+ * the writer takes up to batchSize lines, waiting at most flushInterval for a batch to fill, and writes them with
+ * one buffered FileChannel write. When the queue is full, callers wait until the writer catches up.
+ */
+public class GameLog implements Closeable {
+    // identity checked marker which tells the writer to stop after everything before it is written
+    private static final String STOP = new String("");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BlockingQueue<String> queue;
+    private final FileChannel channel;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread writer;
+    // appends share the read lock while they queue, so close() can't put STOP in front of a line being queued
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    private final AtomicLong appendedLines = new AtomicLong();
+    private final AtomicLong blockedAppends = new AtomicLong();
+    private final AtomicLong writtenLines = new AtomicLong();
+    private final AtomicLong writtenBatches = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+
+    /**
+     * @param file            - the file to which the lines are appended.
+     * @param capacity        - the maximum number of lines waiting to be written.
+     * @param batchSize       - the maximum number of lines written at once.
+     * @param flushIntervalMs - how long the writer waits for a batch to fill before writing what it has.
+     */
+    public GameLog(Path file, int capacity, int batchSize, long flushIntervalMs) throws IOException {
+        if (capacity < 1 || batchSize < 1 || flushIntervalMs < 0) {
+            throw new IllegalArgumentException("Invalid log configuration: capacity=" + capacity + ", batchSize=" +
+                    batchSize + ", flushIntervalMs=" + flushIntervalMs);
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+        this.writer = new Thread(this::writeLoop, "game-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues the line to be written. Blocks while the queue is full.
+     */
+    public void append(String line) throws IOException {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IOException("The game log is closed");
+            }
+            // the writer runs until STOP is queued, so a full queue is always drained
+            if (!queue.offer(line)) {
+                blockedAppends.incrementAndGet();
+                queue.put(line);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the game log");
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        appendedLines.incrementAndGet();
+    }
+
+    /**
+     * Stops accepting lines, writes everything which is already queued and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        // waits for the appends which are already queuing, later ones see closed
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getAppendedLines() {
+        return appendedLines.get();
+    }
+
+    /**
+     * @return how many appends had to wait because the queue was full.
+     */
+    public long getBlockedAppends() {
+        return blockedAppends.get();
+    }
+
+    public long getWrittenLines() {
+        return writtenLines.get();
+    }
+
+    public long getWrittenBatches() {
+        return writtenBatches.get();
+    }
+
+    public long getWriteErrors() {
+        return writeErrors.get();
+    }
+
+    private void writeLoop() {
+        List<String> batch = new ArrayList<>(batchSize);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        boolean running = true;
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    String line = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (line == null) {
+                        break;
+                    }
+                    batch.add(line);
+                }
+            } catch (InterruptedException e) {
+                // the writer is never interrupted on purpose, an interrupt only stops the waiting for a full batch
+            }
+
+            int stop = indexOfStop(batch);
+            if (stop != -1) {
+                running = false;
+                batch.subList(stop, batch.size()).clear();
+            }
+
+            try {
+                write(batch, buffer, encoder);
+                writtenLines.addAndGet(batch.size());
+                writtenBatches.incrementAndGet();
+            } catch (IOException e) {
+                writeErrors.incrementAndGet();
+                e.printStackTrace();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return the index of the STOP marker, or -1. The marker is compared by identity, because indexOf would also
+     * match every empty line.
+     */
+    private static int indexOfStop(List<String> batch) {
+        for (int i = 0; i < batch.size(); i += 1) {
+            if (batch.get(i) == STOP) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void write(List<String> batch, ByteBuffer buffer, CharsetEncoder encoder) throws IOException {
+        buffer.clear();
+        for (String line : batch) {
+            encode(CharBuffer.wrap(line), buffer, encoder);
+            encode(CharBuffer.wrap("\n"), buffer, encoder);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Encodes the text into the buffer and writes the buffer to the channel whenever it gets full.
+     */
+    private void encode(CharBuffer text, ByteBuffer buffer, CharsetEncoder encoder) throws IOException {
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(text, buffer, true);
+            if (result.isOverflow()) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            } else {
+                if (result.isError()) {
+                    result.throwException();
+                }
+                encoder.flush(buffer);
+                return;
+            }
+        }
+    }
+}
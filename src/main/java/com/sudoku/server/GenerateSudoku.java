@@ -1,46 +1,226 @@
 package com.sudoku.server;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import com.sudoku.Board;
+import com.sudoku.PuzzleBatch;
+import com.sudoku.server.HumanRater.Technique;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates rated puzzles and solves them with a plain backtracking search.
+ * <p>
+ * A generation keeps its grid, random source, checker and rater per call and only adds to the counters, so one
+ * instance can generate puzzles on any number of threads at the same time. As a SudokuSolver an instance runs one
+ * search at a time, like the other solvers.
+ */
+public class GenerateSudoku implements SudokuSolver {
+    private static final int MAX_ATTEMPTS = 20;
 
-public class GenerateSudoku {
     private final int gridSize = 9;
-    private final List<Integer> numberList = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+    // the counters of the generations, which may run at the same time
+    private final LongAdder generationNodes = new LongAdder();
+    private final LongAdder uniquenessChecks = new LongAdder();
+
+    // the state of the search of solve and countSolutions
+    private SearchCancellation cancellation;
+    private long nodes;
+    // set once the cancellation is seen, so the whole recursion unwinds without checking it again
+    private boolean stopped;
 
     public int[][] generate(Difficulty difficulty) {
-        int grid[][] = new int[gridSize][gridSize];
+        return generatePuzzle(difficulty).getClues().toGrid();
+    }
+
+    /**
+     * Generates the puzzle of the seed. The same seed and difficulty always give the same puzzle, so a puzzle can be
+     * shared or stored as its seed.
+     */
+    public int[][] generate(Difficulty difficulty, long seed) {
+        return generatePuzzle(difficulty, false, seed).getClues().toGrid();
+    }
+
+    public Puzzle generatePuzzle(Difficulty difficulty) {
+        return generatePuzzle(difficulty, false);
+    }
+
+    /**
+     * Generates a puzzle whose rating is in the technique band of the difficulty and keeps the filled grid it was
+     * made from as its solution. If no attempt reaches the band, the last attempt is returned.
+     *
+     * @param symmetric - true to remove the cells in pairs which are symmetric to the center of the board, like in
+     *                  printed puzzles.
+     */
+    public Puzzle generatePuzzle(Difficulty difficulty, boolean symmetric) {
+        return generatePuzzle(difficulty, symmetric, new SplittableRandom());
+    }
+
+    /**
+     * Generates the puzzle of the seed, see generatePuzzle(Difficulty, boolean). The result depends only on the
+     * arguments, unless the generation is cancelled.
+     */
+    public Puzzle generatePuzzle(Difficulty difficulty, boolean symmetric, long seed) {
+        return generatePuzzle(difficulty, symmetric, new SplittableRandom(seed));
+    }
+
+    private Puzzle generatePuzzle(Difficulty difficulty, boolean symmetric, SplittableRandom random) {
+        HumanRater rater = new HumanRater();
+        Puzzle puzzle = null;
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt += 1) {
+            int grid[][] = new int[gridSize][gridSize];
+            fillGrid(grid, random);
+            Board solution = Board.fromGrid(grid);
+
+            boolean inBand = removeCells(grid, difficulty, rater, symmetric, random);
+            puzzle = new Puzzle(Board.fromGrid(grid), solution);
+            if (inBand) {
+                break;
+            }
+        }
+        return puzzle;
+    }
 
-        int cellsToRemove = ThreadLocalRandom.current().nextInt(difficulty.lowerBound, difficulty.upperBound + 1);
+    /**
+     * Removes cells in random order, every cell(or symmetric pair) is tried once. A removal is taken back when the
+     * puzzle loses its unique solution or needs a harder technique than the difficulty allows.
+     * <p>
+     * The filled grid is the known solution, and the puzzle is unique before every removal, so another solution would
+     * need another value in a removed cell. Instead of counting solutions, the checker only searches for one with
+     * another value, which costs at most two searches per removal.
+     *
+     * @return true once enough cells are removed and the puzzle needs the easiest technique of the band. The puzzle
+     * then has exactly the randomly chosen number of empty cells, unless the band was reached only after it.
+     */
+    private boolean removeCells(int grid[][], Difficulty difficulty, HumanRater rater, boolean symmetric,
+                                SplittableRandom random) {
+        int cellsToRemove = random.nextInt(difficulty.lowerBound, difficulty.upperBound + 1);
+        int lastCell = gridSize * gridSize - 1;
 
-        fillGrid(grid);
+        int order[] = new int[gridSize * gridSize];
+        for (int i = 0; i < order.length; i += 1) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        if (symmetric) {
+            // the center is its own pair, so it is removed first for an odd count and never for an even count
+            for (int i = 0; i < order.length; i += 1) {
+                if (order[i] == lastCell / 2) {
+                    order[i] = order[0];
+                    order[0] = lastCell / 2;
+                }
+            }
+        }
 
-        while (cellsToRemove > 0) {
-            int row = ThreadLocalRandom.current().nextInt(0, gridSize);
-            int column = ThreadLocalRandom.current().nextInt(0, gridSize);
+        // the board is loaded once and every removal only updates the bitmasks of the checker
+        BitmaskSolver checker = new BitmaskSolver();
+        checker.load(grid);
 
-            while (grid[row][column] == 0) {
-                row = ThreadLocalRandom.current().nextInt(0, gridSize);
-                column = ThreadLocalRandom.current().nextInt(0, gridSize);
+        int removed = 0;
+        for (int cell : order) {
+            int partner = symmetric ? lastCell - cell : cell;
+            if (partner < cell || (partner == cell && symmetric && cellsToRemove % 2 == 0)) {
+                // a pair is tried once, from its first cell
+                continue;
             }
+            int row = cell / gridSize;
+            int column = cell % gridSize;
+            int partnerRow = partner / gridSize;
+            int partnerColumn = partner % gridSize;
+
             int backup = grid[row][column];
+            int partnerBackup = grid[partnerRow][partnerColumn];
             grid[row][column] = 0;
+            grid[partnerRow][partnerColumn] = 0;
+            checker.clearCell(row, column);
 
-            int copy[][] = copyGrid(grid);
-
-            IntByReference counter = new IntByReference(0);
-            findNumberOfSolutions(copy, counter);
+            boolean unique;
+            if (partner == cell) {
+                uniquenessChecks.increment();
+                unique = !checker.hasSolutionWithout(row, column, backup);
+            } else {
+                // another solution differs in the cell, or keeps the cell and differs in the partner
+                checker.clearCell(partnerRow, partnerColumn);
+                uniquenessChecks.increment();
+                unique = !checker.hasSolutionWithout(row, column, backup);
+                if (unique) {
+                    checker.setCell(row, column, backup);
+                    uniquenessChecks.increment();
+                    unique = !checker.hasSolutionWithout(partnerRow, partnerColumn, partnerBackup);
+                    checker.clearCell(row, column);
+                }
+            }
 
-            if (counter.value != 1) {
+            // the rater stops at the first technique above the band, so an overshoot is rejected early
+            HumanRater.Rating rating = unique ? rater.rate(grid, difficulty.hardest) : null;
+            if (rating == null || !rating.isComplete()) {
                 grid[row][column] = backup;
-                cellsToRemove -= 1;
+                checker.setCell(row, column, backup);
+                if (partner != cell) {
+                    grid[partnerRow][partnerColumn] = partnerBackup;
+                    checker.setCell(partnerRow, partnerColumn, partnerBackup);
+                }
+                continue;
+            }
+
+            removed += partner == cell ? 1 : 2;
+            if (removed >= cellsToRemove && rating.getHardest().compareTo(difficulty.easiest) >= 0) {
+                generationNodes.add(checker.getNodes());
+                return true;
             }
         }
-        return grid;
+        generationNodes.add(checker.getNodes());
+        return false;
+    }
+
+    /**
+     * Generates count puzzles in parallel on the given pool.
+     */
+    public PuzzleBatch generateBatch(Difficulty difficulty, int count, ForkJoinPool pool) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Batch size must not be negative: " + count);
+        }
+        byte cells[] = new byte[count * gridSize * gridSize];
+
+        long start = System.nanoTime();
+        pool.invoke(new GenerateBatchTask(this, difficulty, cells, 0, count));
+        return new PuzzleBatch(cells, System.nanoTime() - start);
     }
 
+    public PuzzleBatch generateBatch(Difficulty difficulty, int count) {
+        return generateBatch(difficulty, count, ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public void setCancellation(SearchCancellation cancellation) {
+        this.cancellation = cancellation;
+        stopped = false;
+    }
+
+    /**
+     * Includes the nodes of the uniqueness checks of the generated puzzles.
+     */
+    @Override
+    public long getNodes() {
+        return nodes + generationNodes.sum();
+    }
+
+    /**
+     * @return how many times the uniqueness of a puzzle was checked while removing cells, by all generations so far.
+     */
+    public long getUniquenessChecks() {
+        return uniquenessChecks.sum();
+    }
+
+    @Override
     public boolean solve(int grid[][]) {
+        if (isCancelled()) {
+            return false;
+        }
         for (int row = 0; row < gridSize; row++) {
             for (int col = 0; col < gridSize; col++) {
                 if (grid[row][col] == 0) {
@@ -62,6 +242,20 @@ public class GenerateSudoku {
         return true; // sudoku solved
     }
 
+    @Override
+    public int countSolutions(int grid[][], int limit) {
+        if (limit < 1 || GridValidator.validate(grid) != null) {
+            return 0;
+        }
+        int copy[][] = copyGrid(grid);
+        if (isGridFull(copy)) {
+            return 1;
+        }
+        IntByReference counter = new IntByReference(0);
+        findNumberOfSolutions(copy, counter, limit);
+        return counter.value;
+    }
+
     private boolean isGridFull(int grid[][]) {
         for (int i = 0; i < gridSize; i += 1) {
             for (int j = 0; j < gridSize; j += 1) {
@@ -74,14 +268,19 @@ public class GenerateSudoku {
     }
 
     /**
-     * Fills the grid with ONLY valid digits.
+     * Fills the grid with ONLY valid digits, tried in the random order of every cell.
      */
-    private boolean fillGrid(int grid[][]) {
+    private boolean fillGrid(int grid[][], SplittableRandom random) {
         for (int row = 0; row < gridSize; row += 1) {
             for (int column = 0; column < gridSize; column += 1) {
                 if (grid[row][column] == 0) {
-                    Collections.shuffle(numberList);
-                    for (int numberToPlace : numberList) {
+                    int numbers[] = new int[gridSize];
+                    for (int i = 0; i < gridSize; i += 1) {
+                        int j = random.nextInt(i + 1);
+                        numbers[i] = numbers[j];
+                        numbers[j] = i + 1;
+                    }
+                    for (int numberToPlace : numbers) {
                         if (isValidNumber(grid, row, column, numberToPlace)) {
                             grid[row][column] = numberToPlace;
 
@@ -89,7 +288,7 @@ public class GenerateSudoku {
                                 return true;
                             }
 
-                            if (fillGrid(grid)) {
+                            if (fillGrid(grid, random)) {
                                 return true;
                             }
                         }
@@ -102,7 +301,13 @@ public class GenerateSudoku {
         return false;
     }
 
-    private boolean findNumberOfSolutions(int grid[][], IntByReference counter) {
+    /**
+     * @return true when the limit of solutions is reached or the search is cancelled and the search should stop.
+     */
+    private boolean findNumberOfSolutions(int grid[][], IntByReference counter, int limit) {
+        if (isCancelled()) {
+            return true;
+        }
         int row = -1;
         int column = -1;
         for (int i = 0; i < 81; i += 1) {
@@ -116,8 +321,11 @@ public class GenerateSudoku {
                         grid[row][column] = value;
                         if (isGridFull(grid)) {
                             counter.value += 1;
+                            if (counter.value >= limit) {
+                                return true;
+                            }
                             break;
-                        } else if (findNumberOfSolutions(grid, counter)) {
+                        } else if (findNumberOfSolutions(grid, counter, limit)) {
                             return true;
                         }
                     }
@@ -129,6 +337,17 @@ public class GenerateSudoku {
         return false;
     }
 
+    /**
+     * Checks the cancellation every few hundred nodes of the search.
+     */
+    private boolean isCancelled() {
+        if (!stopped) {
+            nodes += 1;
+            stopped = (nodes & 0xFF) == 0 && cancellation != null && cancellation.isCancelled();
+        }
+        return stopped;
+    }
+
     private int[][] copyGrid(int[][] grid) {
         int copy[][] = new int[gridSize][gridSize];
 
@@ -176,18 +395,85 @@ public class GenerateSudoku {
     }
 
     public enum Difficulty {
-        EASY(40, 45),
-        NORMAL(46, 49),
-        HARD(50, 53),
-        EXPERT(54, 58);
+        EASY("Easy", 40, 45, Technique.NAKED_SINGLE, Technique.HIDDEN_SINGLE),
+        NORMAL("Normal", 46, 49, Technique.HIDDEN_SINGLE, Technique.LOCKED_CANDIDATES),
+        HARD("Hard", 50, 53, Technique.LOCKED_CANDIDATES, Technique.X_WING),
+        EXPERT("Expert", 54, 58, Technique.NAKED_PAIR, Technique.TRIAL_AND_ERROR);
 
-        // number of cells to remove
+        // the name shown in the Header and the DifficultyMenu
+        private final String label;
+        // minimal number of cells to remove, more are removed until the puzzle reaches the band
         private final int lowerBound;
         private final int upperBound;
+        // the band of the hardest technique needed to solve the puzzle
+        private final Technique easiest;
+        private final Technique hardest;
 
-        Difficulty(int lowerBound, int upperBound) {
+        Difficulty(String label, int lowerBound, int upperBound, Technique easiest, Technique hardest) {
+            this.label = label;
             this.lowerBound = lowerBound;
             this.upperBound = upperBound;
+            this.easiest = easiest;
+            this.hardest = hardest;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @return the minimal share of the cells which is removed. The bounds are the cells of a 9x9 board, the
+         * shares are used for the other sizes.
+         */
+        double getLowerShare() {
+            return lowerBound / 81.0;
+        }
+
+        double getUpperShare() {
+            return upperBound / 81.0;
+        }
+    }
+
+    /**
+     * Splits a range of the batch in halves until it is small enough to be generated by one worker.
+     */
+    private static class GenerateBatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int PUZZLES_PER_TASK = 4;
+
+        private final GenerateSudoku generateSudoku;
+        private final Difficulty difficulty;
+        private final byte cells[];
+        private final int from;
+        private final int to;
+
+        GenerateBatchTask(GenerateSudoku generateSudoku, Difficulty difficulty, byte cells[], int from, int to) {
+            this.generateSudoku = generateSudoku;
+            this.difficulty = difficulty;
+            this.cells = cells;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PUZZLES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GenerateBatchTask(generateSudoku, difficulty, cells, from, middle),
+                        new GenerateBatchTask(generateSudoku, difficulty, cells, middle, to));
+                return;
+            }
+
+            // all tasks share the generator, every generation keeps its state on its own thread
+            for (int i = from; i < to; i += 1) {
+                int grid[][] = generateSudoku.generate(difficulty);
+                int offset = i * generateSudoku.gridSize * generateSudoku.gridSize;
+                for (int[] row : grid) {
+                    for (int value : row) {
+                        cells[offset++] = (byte) value;
+                    }
+                }
+            }
         }
     }
 
@@ -0,0 +1,107 @@
+package com.sudoku.server;
+
+import com.sudoku.Board;
+import com.sudoku.SizedBoard;
+
+/**
+ * Checks the clues of a board in one pass over the 81 cells, with one bitmask of used digits per row, column and
+ * sector. It runs before any search, so invalid boards are rejected in microseconds.
+ */
+public final class GridValidator {
+    private static final int GRID_SIZE = 9;
+
+    private GridValidator() {
+    }
+
+    /**
+     * @return the first problem of the grid, or null if it is valid.
+     */
+    public static String validate(int grid[][]) {
+        if (grid == null || grid.length != GRID_SIZE) {
+            return "The grid must have " + GRID_SIZE + " rows";
+        }
+        for (int row = 0; row < GRID_SIZE; row += 1) {
+            if (grid[row] == null || grid[row].length != GRID_SIZE) {
+                return "Row " + row + " must have " + GRID_SIZE + " cells";
+            }
+        }
+
+        Masks masks = new Masks(3);
+        for (int row = 0; row < GRID_SIZE; row += 1) {
+            for (int column = 0; column < GRID_SIZE; column += 1) {
+                String problem = masks.add(row, column, grid[row][column]);
+                if (problem != null) {
+                    return problem;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the first problem of the board, or null if it is valid.
+     */
+    public static String validate(Board board) {
+        Masks masks = new Masks(3);
+        for (int row = 0; row < GRID_SIZE; row += 1) {
+            for (int column = 0; column < GRID_SIZE; column += 1) {
+                String problem = masks.add(row, column, board.get(row, column));
+                if (problem != null) {
+                    return problem;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the first problem of the board, or null if it is valid.
+     */
+    public static String validate(SizedBoard board) {
+        Masks masks = new Masks(board.getBoxSize());
+        for (int row = 0; row < board.getSize(); row += 1) {
+            for (int column = 0; column < board.getSize(); column += 1) {
+                String problem = masks.add(row, column, board.get(row, column));
+                if (problem != null) {
+                    return problem;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static class Masks {
+        private final int boxSize;
+        private final int size;
+        private final long rows[];
+        private final long columns[];
+        private final long sectors[];
+
+        Masks(int boxSize) {
+            this.boxSize = boxSize;
+            this.size = boxSize * boxSize;
+            this.rows = new long[size];
+            this.columns = new long[size];
+            this.sectors = new long[size];
+        }
+
+        String add(int row, int column, int value) {
+            if (value == 0) {
+                return null;
+            }
+            if (value < 0 || value > size) {
+                return "Invalid value " + value + " at row " + row + ", column " + column;
+            }
+
+            long bit = 1L << value;
+            int sector = (row / boxSize) * boxSize + column / boxSize;
+            if (((rows[row] | columns[column] | sectors[sector]) & bit) != 0) {
+                return "Duplicate " + value + " at row " + row + ", column " + column;
+            }
+            rows[row] |= bit;
+            columns[column] |= bit;
+            sectors[sector] |= bit;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.sudoku.server;
+
+import com.sudoku.Board;
+import com.sudoku.DeadlineExceededException;
+import com.sudoku.GameResult;
+import com.sudoku.ServerBusyException;
+import com.sudoku.ServerInterface;
+import com.sudoku.SizedBoard;
+import com.sudoku.SolveResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP API for clients which can't use RMI or the binary protocol. Puzzles are sent as 81 characters, row by row,
+ * with '0' or '.' for empty cells.
+ * <ul>
+ * <li>GET /generate?difficulty=hard&amp;count=10&amp;size=9 - count(default 1, at most 1000) puzzles with size(4, 9,
+ * 16 or 25, default 9) rows, one JSON object per line. With seed=n the 9x9 puzzles of the seeds n, n + 1, ... are
+ * generated, which are the same on every request. A puzzle which can't be generated while the server is busy gets an
+ * error line instead.</li>
+ * <li>GET /daily?difficulty=hard - the puzzle of the day as a JSON object, or status 503 if the server is too busy to
+ * generate it.</li>
+ * <li>POST /solve - one puzzle per line in the body, one JSON object per line with the status(SOLVED, MULTIPLE,
+ * NO_SOLUTION or INVALID_INPUT) and the solution. Puzzles of other sizes than 9x9 get only the solution, or an
+ * error if they have none.</li>
+ * <li>POST /results - a form with username, seconds, difficulty and outcome.</li>
+ * <li>GET /metrics - the ServerMetrics in the Prometheus text format.</li>
+ * </ul>
+ * The responses are written with chunked encoding while the puzzles are generated or solved, so the first lines
+ * arrive before the last puzzle is done. The connections are kept alive between requests.
+ */
+public class HttpApi implements Closeable {
+    private static final int MAX_COUNT = 1000;
+    private static final String JSON_LINES = "application/x-ndjson; charset=utf-8";
+
+    private final ServerInterface server;
+    private final ServerMetrics metrics;
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    /**
+     * @param server  - the operations to serve.
+     * @param metrics - the metrics which are served on /metrics.
+     * @param address - the address to listen on.
+     * @param threads - number of threads which handle the requests.
+     */
+    public HttpApi(ServerInterface server, ServerMetrics metrics, InetSocketAddress address, int threads)
+            throws IOException {
+        this.server = server;
+        this.metrics = metrics;
+        this.httpServer = HttpServer.create(address, 0);
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "http-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/generate", this::generate);
+        httpServer.createContext("/daily", this::daily);
+        httpServer.createContext("/solve", this::solve);
+        httpServer.createContext("/results", this::submitResult);
+        httpServer.createContext("/metrics", this::metrics);
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdown();
+    }
+
+    private void generate(HttpExchange exchange) throws IOException {
+        try {
+            if (!checkMethod(exchange, "GET")) {
+                return;
+            }
+            GenerateSudoku.Difficulty difficulty;
+            int count;
+            int size;
+            Long seed;
+            try {
+                Map<String, String> parameters = parseForm(exchange.getRequestURI().getRawQuery());
+                difficulty = GenerateSudoku.Difficulty.valueOf(
+                        parameters.getOrDefault("difficulty", "normal").toUpperCase(Locale.ROOT));
+                count = Integer.parseInt(parameters.getOrDefault("count", "1"));
+                size = Integer.parseInt(parameters.getOrDefault("size", "9"));
+                SizedBoard.boxSizeOf(size);
+                seed = parameters.containsKey("seed") ? Long.valueOf(parameters.get("seed")) : null;
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "Invalid difficulty, count, size or seed");
+                return;
+            }
+            if (count < 1 || count > MAX_COUNT) {
+                sendError(exchange, 400, "The count must be between 1 and " + MAX_COUNT);
+                return;
+            }
+            if (seed != null && size != 9) {
+                sendError(exchange, 400, "Only 9x9 puzzles can be generated from a seed");
+                return;
+            }
+
+            Writer writer = startResponse(exchange, 200, JSON_LINES);
+            for (int i = 0; i < count; i += 1) {
+                Object puzzle;
+                try {
+                    if (seed != null) {
+                        puzzle = server.generateSudokuBoard(difficulty, seed + i);
+                    } else if (size == 9) {
+                        puzzle = server.generateSudokuBoard(difficulty);
+                    } else {
+                        puzzle = server.generateSudokuBoard(size, difficulty);
+                    }
+                } catch (ServerBusyException | DeadlineExceededException e) {
+                    // the status is already sent, so the puzzles which were not generated are reported one by one
+                    writer.write("{\"difficulty\":\"" + difficulty + "\"" +
+                            (seed != null ? ",\"seed\":" + (seed + i) : "") +
+                            ",\"error\":" + quote(e.getMessage()) + "}\n");
+                    writer.flush();
+                    continue;
+                }
+                writer.write("{\"difficulty\":\"" + difficulty + "\",\"puzzle\":\"" + puzzle + "\"}\n");
+                writer.flush();
+            }
+            writer.close();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void daily(HttpExchange exchange) throws IOException {
+        try {
+            if (!checkMethod(exchange, "GET")) {
+                return;
+            }
+            GenerateSudoku.Difficulty difficulty;
+            try {
+                Map<String, String> parameters = parseForm(exchange.getRequestURI().getRawQuery());
+                difficulty = GenerateSudoku.Difficulty.valueOf(
+                        parameters.getOrDefault("difficulty", "normal").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "Invalid difficulty");
+                return;
+            }
+
+            Board puzzle;
+            try {
+                puzzle = server.getDailySudoku(difficulty);
+            } catch (ServerBusyException e) {
+                // only the first request of the day generates the puzzle, which can be rejected
+                sendError(exchange, 503, e.getMessage());
+                return;
+            }
+            Writer writer = startResponse(exchange, 200, "application/json; charset=utf-8");
+            writer.write("{\"difficulty\":\"" + difficulty + "\",\"puzzle\":\"" + puzzle + "\"}\n");
+            writer.close();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void solve(HttpExchange exchange) throws IOException {
+        try {
+            if (!checkMethod(exchange, "POST")) {
+                return;
+            }
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(),
+                    StandardCharsets.UTF_8));
+            Writer writer = startResponse(exchange, 200, JSON_LINES);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                if (line.length() != 81) {
+                    solveSized(line, writer);
+                    continue;
+                }
+
+                Board puzzle;
+                try {
+                    puzzle = Board.parse(line);
+                } catch (IllegalArgumentException e) {
+                    writer.write("{\"puzzle\":" + quote(line) + ",\"error\":" + quote(e.getMessage()) + "}\n");
+                    writer.flush();
+                    continue;
+                }
+                SolveResult result;
+                try {
+                    result = server.solve(puzzle);
+                } catch (ServerBusyException | DeadlineExceededException e) {
+                    // the status is already sent, so the puzzles which were not solved are reported one by one
+                    writer.write("{\"puzzle\":\"" + puzzle + "\",\"error\":" + quote(e.getMessage()) + "}\n");
+                    writer.flush();
+                    continue;
+                }
+                writer.write("{\"puzzle\":\"" + puzzle + "\",\"status\":\"" + result.getStatus() + "\"" +
+                        (result.getSolution() != null ? ",\"solution\":\"" + result.getSolution() + "\"" : "") +
+                        (result.getMessage() != null ? ",\"error\":" + quote(result.getMessage()) : "") + "}\n");
+                writer.flush();
+            }
+            writer.close();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void solveSized(String line, Writer writer) throws IOException {
+        try {
+            SizedBoard puzzle = SizedBoard.parse(line);
+            SizedBoard solution = server.solveSudoku(puzzle);
+            // the board comes back unchanged when it has no solution
+            if (solution.toString().indexOf('0') >= 0) {
+                writer.write("{\"puzzle\":\"" + puzzle + "\",\"error\":\"No solution\"}\n");
+            } else {
+                writer.write("{\"puzzle\":\"" + puzzle + "\",\"solution\":\"" + solution + "\"}\n");
+            }
+        } catch (IllegalArgumentException | ServerBusyException | DeadlineExceededException e) {
+            writer.write("{\"puzzle\":" + quote(line) + ",\"error\":" + quote(e.getMessage()) + "}\n");
+        }
+        writer.flush();
+    }
+
+    private void submitResult(HttpExchange exchange) throws IOException {
+        try {
+            if (!checkMethod(exchange, "POST")) {
+                return;
+            }
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+            GameResult result;
+            try {
+                Map<String, String> form = parseForm(body);
+                result = new GameResult(form.get("username"), Long.parseLong(form.getOrDefault("seconds", "")),
+                        GenerateSudoku.Difficulty.valueOf(form.getOrDefault("difficulty", "").toUpperCase(Locale.ROOT)),
+                        GameResult.Outcome.valueOf(form.getOrDefault("outcome", "").toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "Expected username, seconds, difficulty and outcome");
+                return;
+            }
+            server.submitResult(result);
+            exchange.sendResponseHeaders(204, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!checkMethod(exchange, "GET")) {
+                return;
+            }
+            Writer writer = startResponse(exchange, 200, "text/plain; version=0.0.4; charset=utf-8");
+            metrics.writeText(writer);
+            writer.close();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends 405 if the request has another method.
+     */
+    private static boolean checkMethod(HttpExchange exchange, String method) throws IOException {
+        if (exchange.getRequestMethod().equals(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        sendError(exchange, 405, "Use " + method);
+        return false;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        // the rest of the body has to be read, otherwise the connection can't be reused
+        drain(exchange.getRequestBody());
+        Writer writer = startResponse(exchange, status, "application/json; charset=utf-8");
+        writer.write("{\"error\":" + quote(message) + "}\n");
+        writer.close();
+    }
+
+    /**
+     * Sends the headers without a length, so the body is sent in chunks as it is written.
+     */
+    private static Writer startResponse(HttpExchange exchange, int status, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte buffer[] = new byte[4096];
+        while (in.read(buffer) != -1) {
+            // discard
+        }
+    }
+
+    /**
+     * Parses name=value pairs separated by '&amp;', as in a query string or a form body.
+     *
+     * @throws IllegalArgumentException if a name or value is not correctly encoded.
+     */
+    private static Map<String, String> parseForm(String text) {
+        Map<String, String> parameters = new HashMap<>();
+        if (text == null || text.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : text.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String quote(String text) {
+        StringBuilder builder = new StringBuilder(text.length() + 2);
+        builder.append('"');
+        for (int i = 0; i < text.length(); i += 1) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < ' ') {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
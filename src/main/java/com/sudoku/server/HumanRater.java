@@ -0,0 +1,407 @@
+package com.sudoku.server;
+
+/**
+ * Rates puzzles by solving them the way a person would: it always applies the simplest technique which makes progress
+ * and remembers the hardest one that was needed. Every application adds the weight of its technique to the score.
+ * <p>
+ * The rating can be limited to a technique. When the puzzle can't be finished without a harder one, rating stops
+ * right away, which lets the generator reject a puzzle as soon as it becomes too hard.
+ * <p>
+ * Instances keep the board in preallocated arrays and are not thread safe.
+ */
+public class HumanRater {
+    private static final int GRID_SIZE = 9;
+    private static final int CELLS = GRID_SIZE * GRID_SIZE;
+
+    private final int values[] = new int[CELLS];
+    private final int candidates[] = new int[CELLS];
+
+    /**
+     * Rates the puzzle with all techniques.
+     */
+    public Rating rate(int grid[][]) {
+        return rate(grid, Technique.TRIAL_AND_ERROR);
+    }
+
+    /**
+     * Rates the puzzle, but only with techniques up to the limit.
+     *
+     * @return the rating. If the puzzle needs a harder technique than the limit, the rating is not complete and its
+     * hardest technique is the one after the limit, as the puzzle needs at least that.
+     */
+    public Rating rate(int grid[][], Technique limit) {
+        load(grid);
+        int score = 0;
+        Technique hardest = Technique.NAKED_SINGLE;
+
+        while (!isSolved()) {
+            Technique applied = null;
+            for (Technique technique : Technique.values()) {
+                if (technique.compareTo(limit) > 0 || technique == Technique.TRIAL_AND_ERROR) {
+                    break;
+                }
+                if (apply(technique)) {
+                    applied = technique;
+                    break;
+                }
+            }
+
+            if (applied == null) {
+                // nothing is harder than guessing, so a puzzle which needs it is still rated completely
+                boolean complete = limit == Technique.TRIAL_AND_ERROR;
+                Technique needed = complete ? limit : Technique.values()[limit.ordinal() + 1];
+                return new Rating(score + needed.weight, max(hardest, needed), complete);
+            }
+            score += applied.weight;
+            hardest = max(hardest, applied);
+        }
+        return new Rating(score, hardest, true);
+    }
+
+    private void load(int grid[][]) {
+        for (int i = 0; i < CELLS; i += 1) {
+            values[i] = 0;
+            candidates[i] = (1 << GRID_SIZE) - 1;
+        }
+        for (int i = 0; i < CELLS; i += 1) {
+            int value = grid[i / GRID_SIZE][i % GRID_SIZE];
+            if (value != 0) {
+                place(i, value);
+            }
+        }
+    }
+
+    private boolean isSolved() {
+        for (int i = 0; i < CELLS; i += 1) {
+            if (values[i] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void place(int cell, int value) {
+        int bit = 1 << (value - 1);
+        values[cell] = value;
+        candidates[cell] = 0;
+        for (int i = 0; i < GRID_SIZE; i += 1) {
+            candidates[BitmaskSolver.UNITS[BitmaskSolver.ROW_OF[cell]][i]] &= ~bit;
+            candidates[BitmaskSolver.UNITS[GRID_SIZE + BitmaskSolver.COLUMN_OF[cell]][i]] &= ~bit;
+            candidates[BitmaskSolver.UNITS[2 * GRID_SIZE + BitmaskSolver.SECTOR_OF[cell]][i]] &= ~bit;
+        }
+    }
+
+    private boolean apply(Technique technique) {
+        switch (technique) {
+            case NAKED_SINGLE:
+                return nakedSingle();
+            case HIDDEN_SINGLE:
+                return hiddenSingle();
+            case LOCKED_CANDIDATES:
+                return lockedCandidates();
+            case NAKED_PAIR:
+                return nakedPair();
+            case HIDDEN_PAIR:
+                return hiddenPair();
+            case X_WING:
+                return xWing();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * A cell with only one candidate.
+     */
+    private boolean nakedSingle() {
+        for (int i = 0; i < CELLS; i += 1) {
+            if (values[i] == 0 && Integer.bitCount(candidates[i]) == 1) {
+                place(i, Integer.numberOfTrailingZeros(candidates[i]) + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A digit which fits in only one cell of a unit.
+     */
+    private boolean hiddenSingle() {
+        for (int unit[] : BitmaskSolver.UNITS) {
+            for (int digit = 0; digit < GRID_SIZE; digit += 1) {
+                int target = -1;
+                int count = 0;
+                for (int cell : unit) {
+                    if ((candidates[cell] & (1 << digit)) != 0) {
+                        target = cell;
+                        count += 1;
+                    }
+                }
+                if (count == 1) {
+                    place(target, digit + 1);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The candidates of a digit in a sector are all in one row or column(pointing), so the digit can be removed from
+     * the rest of that line. Or the candidates of a digit in a line are all in one sector(claiming), so the digit can
+     * be removed from the rest of the sector.
+     */
+    private boolean lockedCandidates() {
+        for (int sector = 0; sector < GRID_SIZE; sector += 1) {
+            int sectorUnit[] = BitmaskSolver.UNITS[2 * GRID_SIZE + sector];
+            for (int digit = 0; digit < GRID_SIZE; digit += 1) {
+                int bit = 1 << digit;
+                int rowsMask = 0;
+                int columnsMask = 0;
+                for (int cell : sectorUnit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        rowsMask |= 1 << BitmaskSolver.ROW_OF[cell];
+                        columnsMask |= 1 << BitmaskSolver.COLUMN_OF[cell];
+                    }
+                }
+                if (Integer.bitCount(rowsMask) == 1 && eliminateOutsideSector(
+                        BitmaskSolver.UNITS[Integer.numberOfTrailingZeros(rowsMask)], sector, bit)) {
+                    return true;
+                }
+                if (Integer.bitCount(columnsMask) == 1 && eliminateOutsideSector(
+                        BitmaskSolver.UNITS[GRID_SIZE + Integer.numberOfTrailingZeros(columnsMask)], sector, bit)) {
+                    return true;
+                }
+            }
+        }
+
+        for (int line = 0; line < 2 * GRID_SIZE; line += 1) {
+            for (int digit = 0; digit < GRID_SIZE; digit += 1) {
+                int bit = 1 << digit;
+                int sectorsMask = 0;
+                for (int cell : BitmaskSolver.UNITS[line]) {
+                    if ((candidates[cell] & bit) != 0) {
+                        sectorsMask |= 1 << BitmaskSolver.SECTOR_OF[cell];
+                    }
+                }
+                if (Integer.bitCount(sectorsMask) != 1) {
+                    continue;
+                }
+
+                boolean eliminated = false;
+                for (int cell : BitmaskSolver.UNITS[2 * GRID_SIZE + Integer.numberOfTrailingZeros(sectorsMask)]) {
+                    if (!contains(BitmaskSolver.UNITS[line], cell) && (candidates[cell] & bit) != 0) {
+                        candidates[cell] &= ~bit;
+                        eliminated = true;
+                    }
+                }
+                if (eliminated) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Two cells of a unit with the same two candidates, which can be removed from the rest of the unit.
+     */
+    private boolean nakedPair() {
+        for (int unit[] : BitmaskSolver.UNITS) {
+            for (int i = 0; i < GRID_SIZE; i += 1) {
+                int pair = candidates[unit[i]];
+                if (Integer.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int j = i + 1; j < GRID_SIZE; j += 1) {
+                    if (candidates[unit[j]] != pair) {
+                        continue;
+                    }
+                    boolean eliminated = false;
+                    for (int k = 0; k < GRID_SIZE; k += 1) {
+                        if (k != i && k != j && (candidates[unit[k]] & pair) != 0) {
+                            candidates[unit[k]] &= ~pair;
+                            eliminated = true;
+                        }
+                    }
+                    if (eliminated) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Two digits which fit only in the same two cells of a unit, so all other candidates of these cells can be
+     * removed.
+     */
+    private boolean hiddenPair() {
+        for (int unit[] : BitmaskSolver.UNITS) {
+            // the cells of the unit in which every digit fits, as a bitmask of positions
+            int positions[] = new int[GRID_SIZE];
+            for (int k = 0; k < GRID_SIZE; k += 1) {
+                for (int digit = 0; digit < GRID_SIZE; digit += 1) {
+                    if ((candidates[unit[k]] & (1 << digit)) != 0) {
+                        positions[digit] |= 1 << k;
+                    }
+                }
+            }
+
+            for (int first = 0; first < GRID_SIZE; first += 1) {
+                if (Integer.bitCount(positions[first]) != 2) {
+                    continue;
+                }
+                for (int second = first + 1; second < GRID_SIZE; second += 1) {
+                    if (positions[second] != positions[first]) {
+                        continue;
+                    }
+                    int pair = (1 << first) | (1 << second);
+                    boolean eliminated = false;
+                    for (int k = 0; k < GRID_SIZE; k += 1) {
+                        if ((positions[first] & (1 << k)) != 0 && (candidates[unit[k]] & ~pair) != 0) {
+                            candidates[unit[k]] &= pair;
+                            eliminated = true;
+                        }
+                    }
+                    if (eliminated) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A digit which fits in exactly the same two columns in two rows, so it can be removed from the rest of these
+     * columns. The same with rows and columns swapped.
+     */
+    private boolean xWing() {
+        for (int offset = 0; offset <= GRID_SIZE; offset += GRID_SIZE) {
+            // offset 0 uses the rows as base lines, offset 9 the columns
+            int crossOffset = GRID_SIZE - offset;
+            for (int digit = 0; digit < GRID_SIZE; digit += 1) {
+                int bit = 1 << digit;
+                int positions[] = new int[GRID_SIZE];
+                for (int line = 0; line < GRID_SIZE; line += 1) {
+                    int unit[] = BitmaskSolver.UNITS[offset + line];
+                    for (int k = 0; k < GRID_SIZE; k += 1) {
+                        if ((candidates[unit[k]] & bit) != 0) {
+                            positions[line] |= 1 << k;
+                        }
+                    }
+                }
+
+                for (int first = 0; first < GRID_SIZE; first += 1) {
+                    if (Integer.bitCount(positions[first]) != 2) {
+                        continue;
+                    }
+                    for (int second = first + 1; second < GRID_SIZE; second += 1) {
+                        if (positions[second] != positions[first]) {
+                            continue;
+                        }
+                        boolean eliminated = false;
+                        int crossLines = positions[first];
+                        while (crossLines != 0) {
+                            int cross = Integer.numberOfTrailingZeros(crossLines);
+                            crossLines &= crossLines - 1;
+                            int unit[] = BitmaskSolver.UNITS[crossOffset + cross];
+                            for (int k = 0; k < GRID_SIZE; k += 1) {
+                                if (k != first && k != second && (candidates[unit[k]] & bit) != 0) {
+                                    candidates[unit[k]] &= ~bit;
+                                    eliminated = true;
+                                }
+                            }
+                        }
+                        if (eliminated) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean eliminateOutsideSector(int line[], int sector, int bit) {
+        boolean eliminated = false;
+        for (int cell : line) {
+            if (BitmaskSolver.SECTOR_OF[cell] != sector && (candidates[cell] & bit) != 0) {
+                candidates[cell] &= ~bit;
+                eliminated = true;
+            }
+        }
+        return eliminated;
+    }
+
+    private static boolean contains(int unit[], int cell) {
+        for (int other : unit) {
+            if (other == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Technique max(Technique first, Technique second) {
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+
+    /**
+     * The solving techniques from the simplest to the hardest, with the score of one application.
+     */
+    public enum Technique {
+        NAKED_SINGLE(1),
+        HIDDEN_SINGLE(2),
+        LOCKED_CANDIDATES(5),
+        NAKED_PAIR(6),
+        HIDDEN_PAIR(8),
+        X_WING(12),
+        // the puzzle can't be finished with the techniques above, a person would have to guess
+        TRIAL_AND_ERROR(50);
+
+        private final int weight;
+
+        Technique(int weight) {
+            this.weight = weight;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    public static class Rating {
+        private final int score;
+        private final Technique hardest;
+        private final boolean complete;
+
+        Rating(int score, Technique hardest, boolean complete) {
+            this.score = score;
+            this.hardest = hardest;
+            this.complete = complete;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public Technique getHardest() {
+            return hardest;
+        }
+
+        /**
+         * @return false if the rating stopped because a harder technique than allowed was needed.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        public String toString() {
+            return "score " + score + ", hardest " + hardest + (complete ? "" : ", not finished");
+        }
+    }
+}
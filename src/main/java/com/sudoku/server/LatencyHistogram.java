@@ -0,0 +1,125 @@
+package com.sudoku.server;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies with power of two buckets in microseconds. Recording is a few additions on LongAdders, so
+ * it can be called from every request without contention.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+    // bucket i counts the latencies below 2^i microseconds, the last one also everything above
+    private static final int BUCKETS = 32;
+
+    private final LongAdder buckets[] = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i += 1) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(nanos, 0) / 1000;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        buckets[Math.min(bucket, BUCKETS - 1)].increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Records the time since the start.
+     *
+     * @param startNanos - the System.nanoTime when the operation started.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public long getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : sumNanos.sum() / count / 1000;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return maxNanos.get() / 1000;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return getPercentileMicros(0.5);
+    }
+
+    @Override
+    public long getP90Micros() {
+        return getPercentileMicros(0.9);
+    }
+
+    @Override
+    public long getP99Micros() {
+        return getPercentileMicros(0.99);
+    }
+
+    /**
+     * @return the upper bound of the bucket which contains the percentile, or 0 if nothing was recorded.
+     */
+    public long getPercentileMicros(double percentile) {
+        long counts[] = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    /**
+     * Writes the histogram in the Prometheus text format, with cumulative buckets in seconds.
+     *
+     * @param name   - the name of the metric.
+     * @param labels - labels added to every line, like difficulty="EASY", or an empty string.
+     */
+    public void writeText(Appendable out, String name, String labels) throws IOException {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS - 1; i += 1) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{").append(prefix).append("le=\"")
+                    .append(Double.toString((1L << i) / 1e6)).append("\"} ").append(Long.toString(cumulative))
+                    .append('\n');
+        }
+        cumulative += buckets[BUCKETS - 1].sum();
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(Long.toString(cumulative))
+                .append('\n');
+        out.append(name).append("_sum").append(braces).append(' ').append(Double.toString(sumNanos.sum() / 1e9))
+                .append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(Long.toString(cumulative)).append('\n');
+    }
+}
@@ -0,0 +1,18 @@
+package com.sudoku.server;
+
+/**
+ * The JMX view of a LatencyHistogram. The percentiles are the upper bounds of their buckets.
+ */
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    long getMeanMicros();
+
+    long getMaxMicros();
+
+    long getP50Micros();
+
+    long getP90Micros();
+
+    long getP99Micros();
+}
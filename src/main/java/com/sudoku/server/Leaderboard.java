@@ -0,0 +1,109 @@
+package com.sudoku.server;
+
+import com.sudoku.GameResult;
+import com.sudoku.LeaderboardEntry;
+import com.sudoku.UserStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the best time of every user per Difficulty in a sorted index and the number of games of every user per
+ * outcome. It is updated with every result the server receives and rebuilt from the ResultJournal at startup, so
+ * queries never read the log files.
+ */
+public class Leaderboard {
+    private static final Comparator<LeaderboardEntry> BY_TIME = Comparator
+            .comparingLong(LeaderboardEntry::getElapsedSeconds)
+            .thenComparing(LeaderboardEntry::getUsername);
+
+    private final Map<GenerateSudoku.Difficulty, TreeSet<LeaderboardEntry>> bestTimes;
+    private final Map<GenerateSudoku.Difficulty, Map<String, LeaderboardEntry>> bestTimeByUser;
+    // solved, not solved and used solver counts, indexed by GameResult.Outcome ordinal
+    private final Map<String, long[]> outcomesByUser;
+
+    public Leaderboard() {
+        bestTimes = new EnumMap<>(GenerateSudoku.Difficulty.class);
+        bestTimeByUser = new EnumMap<>(GenerateSudoku.Difficulty.class);
+        outcomesByUser = new HashMap<>();
+
+        for (GenerateSudoku.Difficulty difficulty : GenerateSudoku.Difficulty.values()) {
+            bestTimes.put(difficulty, new TreeSet<>(BY_TIME));
+            bestTimeByUser.put(difficulty, new HashMap<>());
+        }
+    }
+
+    /**
+     * Builds a leaderboard from all results in the journal.
+     */
+    public static Leaderboard load(ResultJournal journal) throws IOException {
+        Leaderboard leaderboard = new Leaderboard();
+        journal.scan(record -> leaderboard.record(record.getUsername(), record.getElapsedSeconds(),
+                record.getDifficulty(), record.getOutcome()));
+        return leaderboard;
+    }
+
+    public void record(GameResult result) {
+        record(result.getUsername(), result.getElapsedSeconds(), result.getDifficulty(), result.getOutcome());
+    }
+
+    /**
+     * Records the username as the ResultJournal stores it, so the leaderboard is the same after a restart.
+     */
+    public synchronized void record(String username, long elapsedSeconds, GenerateSudoku.Difficulty difficulty,
+                                    GameResult.Outcome outcome) {
+        username = ResultJournal.storedUsername(username);
+        outcomesByUser.computeIfAbsent(username, key -> new long[GameResult.Outcome.values().length])
+                [outcome.ordinal()] += 1;
+
+        if (outcome != GameResult.Outcome.SOLVED) {
+            return;
+        }
+        Map<String, LeaderboardEntry> byUser = bestTimeByUser.get(difficulty);
+        LeaderboardEntry previous = byUser.get(username);
+        if (previous != null && previous.getElapsedSeconds() <= elapsedSeconds) {
+            return;
+        }
+
+        LeaderboardEntry entry = new LeaderboardEntry(username, elapsedSeconds, difficulty);
+        TreeSet<LeaderboardEntry> index = bestTimes.get(difficulty);
+        if (previous != null) {
+            index.remove(previous);
+        }
+        index.add(entry);
+        byUser.put(username, entry);
+    }
+
+    /**
+     * @return the count fastest users on the difficulty, fastest first.
+     */
+    public synchronized List<LeaderboardEntry> getTopTimes(GenerateSudoku.Difficulty difficulty, int count) {
+        List<LeaderboardEntry> top = new ArrayList<>();
+        Iterator<LeaderboardEntry> iterator = bestTimes.get(difficulty).iterator();
+        while (top.size() < count && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    /**
+     * @return the statistics of the user, all zero if the user has not played yet.
+     */
+    public synchronized UserStats getUserStats(String username) {
+        username = ResultJournal.storedUsername(username);
+        long outcomes[] = outcomesByUser.get(username);
+        if (outcomes == null) {
+            return new UserStats(username, 0, 0, 0);
+        }
+        return new UserStats(username, outcomes[GameResult.Outcome.SOLVED.ordinal()],
+                outcomes[GameResult.Outcome.NOT_SOLVED.ordinal()],
+                outcomes[GameResult.Outcome.USED_SOLVER.ordinal()]);
+    }
+}
@@ -0,0 +1,194 @@
+package com.sudoku.server;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Splits the top levels of the search tree into subtrees which are solved by BitmaskSolvers on a work stealing pool.
+ * The subtrees share one solution counter and a SearchCancellation, so all of them stop as soon as the limit is
+ * reached, e.g. when a second solution is found during a uniqueness check.
+ * <p>
+ * All search state is created per call, so one instance can be shared between threads.
+ */
+public class ParallelSolver implements SudokuSolver {
+    private static final int GRID_SIZE = 9;
+    private static final int CELLS = GRID_SIZE * GRID_SIZE;
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private volatile SearchCancellation cancellation;
+    private final LongAdder nodes = new LongAdder();
+
+    /**
+     * @param pool       - the pool which runs the subtrees.
+     * @param splitDepth - the number of branching levels which are split into separate tasks.
+     */
+    public ParallelSolver(ForkJoinPool pool, int splitDepth) {
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    @Override
+    public boolean solve(int grid[][]) {
+        Search search = new Search(1);
+        if (!search.run(grid)) {
+            return false;
+        }
+        int solution[] = search.solution.get();
+        for (int i = 0; i < CELLS; i += 1) {
+            grid[i / GRID_SIZE][i % GRID_SIZE] = solution[i];
+        }
+        return true;
+    }
+
+    /**
+     * The cancellation applies to every later call, also to calls from other threads.
+     */
+    @Override
+    public void setCancellation(SearchCancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * The nodes of the subtree searches. The split itself is not counted.
+     */
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public int countSolutions(int grid[][], int limit) {
+        Search search = new Search(limit);
+        search.run(grid);
+        return Math.min(search.found.get(), limit);
+    }
+
+    /**
+     * The state shared by all subtrees of one call.
+     */
+    private class Search {
+        private final int limit;
+        private final AtomicInteger found = new AtomicInteger();
+        private final AtomicReference<int[]> solution = new AtomicReference<>();
+        private final SearchCancellation cancellation;
+
+        Search(int limit) {
+            this.limit = limit;
+            // the subtrees cancel their own search when the limit is reached, without cancelling the caller's
+            SearchCancellation parent = ParallelSolver.this.cancellation;
+            this.cancellation = parent == null ? new SearchCancellation() : parent.child();
+        }
+
+        /**
+         * @return true if at least one solution was found.
+         */
+        boolean run(int grid[][]) {
+            // the split only reads the cells, so invalid grids are rejected before any task is created
+            if (limit < 1 || !new BitmaskSolver().load(grid)) {
+                return false;
+            }
+            int cells[] = new int[CELLS];
+            for (int i = 0; i < CELLS; i += 1) {
+                cells[i] = grid[i / GRID_SIZE][i % GRID_SIZE];
+            }
+            pool.invoke(new SubtreeTask(this, cells, splitDepth));
+            return found.get() > 0;
+        }
+
+        void addNodes(long subtreeNodes) {
+            nodes.add(subtreeNodes);
+        }
+    }
+
+    private static class SubtreeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Search search;
+        private final int cells[];
+        private final int depth;
+
+        SubtreeTask(Search search, int cells[], int depth) {
+            this.search = search;
+            this.cells = cells;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.cancellation.isCancelled()) {
+                return;
+            }
+
+            int bestCell = -1;
+            int bestCandidates = 0;
+            for (int i = 0; i < CELLS; i += 1) {
+                if (cells[i] == 0) {
+                    int candidates = candidates(i);
+                    if (bestCell == -1 || Integer.bitCount(candidates) < Integer.bitCount(bestCandidates)) {
+                        bestCell = i;
+                        bestCandidates = candidates;
+                    }
+                }
+            }
+
+            if (depth == 0 || bestCell == -1) {
+                solveSubtree();
+                return;
+            }
+
+            int count = Integer.bitCount(bestCandidates);
+            SubtreeTask subtrees[] = new SubtreeTask[count];
+            for (int i = 0; i < count; i += 1) {
+                int bit = bestCandidates & -bestCandidates;
+                bestCandidates ^= bit;
+
+                int child[] = cells.clone();
+                child[bestCell] = Integer.numberOfTrailingZeros(bit) + 1;
+                subtrees[i] = new SubtreeTask(search, child, depth - 1);
+            }
+            invokeAll(subtrees);
+        }
+
+        private void solveSubtree() {
+            int grid[][] = new int[GRID_SIZE][GRID_SIZE];
+            for (int i = 0; i < CELLS; i += 1) {
+                grid[i / GRID_SIZE][i % GRID_SIZE] = cells[i];
+            }
+
+            BitmaskSolver solver = new BitmaskSolver();
+            solver.setCancellation(search.cancellation);
+            int count = solver.countSolutions(grid, search.limit);
+            search.addNodes(solver.getNodes());
+            if (count == 0) {
+                return;
+            }
+
+            int solution[] = new int[CELLS];
+            solver.copySolution(solution);
+            search.solution.compareAndSet(null, solution);
+
+            if (search.found.addAndGet(count) >= search.limit) {
+                search.cancellation.cancel();
+            }
+        }
+
+        private int candidates(int cell) {
+            int row = cell / GRID_SIZE;
+            int column = cell % GRID_SIZE;
+            int sectorRow = row - row % 3;
+            int sectorColumn = column - column % 3;
+
+            int used = 0;
+            for (int i = 0; i < GRID_SIZE; i += 1) {
+                used |= 1 << cells[row * GRID_SIZE + i];
+                used |= 1 << cells[i * GRID_SIZE + column];
+                used |= 1 << cells[(sectorRow + i / 3) * GRID_SIZE + sectorColumn + i % 3];
+            }
+            // bit 0 stands for empty cells and is dropped by the shift
+            return ~used >>> 1 & ((1 << GRID_SIZE) - 1);
+        }
+    }
+}
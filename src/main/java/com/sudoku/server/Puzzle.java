@@ -0,0 +1,24 @@
+package com.sudoku.server;
+
+import com.sudoku.Board;
+
+/**
+ * A generated puzzle together with the full grid it was dug from, which is its only solution.
+ */
+public class Puzzle {
+    private final Board clues;
+    private final Board solution;
+
+    public Puzzle(Board clues, Board solution) {
+        this.clues = clues;
+        this.solution = solution;
+    }
+
+    public Board getClues() {
+        return clues;
+    }
+
+    public Board getSolution() {
+        return solution;
+    }
+}
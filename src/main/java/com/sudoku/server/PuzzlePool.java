@@ -0,0 +1,206 @@
+package com.sudoku.server;
+
+import com.sudoku.Board;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a bounded queue of generated puzzles for every Difficulty, so a request only has to take a puzzle from the
+ * queue. When a queue drops below the low watermark, a background worker generates puzzles until it reaches the high
+ * watermark again. If a queue is empty, the puzzle is generated on the calling thread.
+ * <p>
+ * Every generated puzzle is also turned into a few variants with random symmetry transformations, which are as
+ * difficult and unique as the original but cost almost nothing. A variant is held back until a full queue of other
+ * puzzles was queued after the last copy of its puzzle, so a player doesn't get the same puzzle twice in a row.
+ * Generated puzzles which are equivalent to a recently generated one are dropped.
+ */
+public class PuzzlePool {
+    private final Map<GenerateSudoku.Difficulty, BlockingQueue<Puzzle>> puzzles;
+    private final Map<GenerateSudoku.Difficulty, AtomicBoolean> refilling;
+    // canonical forms of the last generated puzzles
+    private final Map<GenerateSudoku.Difficulty, Set<Board>> recentlyGenerated;
+    // only used by the refill, which runs at most once per difficulty at a time
+    private final Map<GenerateSudoku.Difficulty, HeldVariants> heldVariants;
+    private final ExecutorService workers;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final int variantsPerPuzzle;
+    private final ServerMetrics metrics;
+
+    /**
+     * @param lowWatermark      - a refill starts when fewer puzzles than this are left in a queue.
+     * @param highWatermark     - the number of puzzles kept in every queue.
+     * @param workerCount       - the number of background threads which generate puzzles.
+     * @param variantsPerPuzzle - the number of transformed copies added for every generated puzzle.
+     * @param metrics           - records the time and the search work of every generated puzzle.
+     */
+    public PuzzlePool(int lowWatermark, int highWatermark, int workerCount, int variantsPerPuzzle,
+                      ServerMetrics metrics) {
+        if (highWatermark < 1 || lowWatermark < 0 || lowWatermark > highWatermark || workerCount < 1 ||
+                variantsPerPuzzle < 0) {
+            throw new IllegalArgumentException("Invalid pool configuration: low=" + lowWatermark + ", high=" +
+                    highWatermark + ", workers=" + workerCount + ", variants=" + variantsPerPuzzle);
+        }
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.variantsPerPuzzle = variantsPerPuzzle;
+        this.metrics = metrics;
+        this.puzzles = new EnumMap<>(GenerateSudoku.Difficulty.class);
+        this.refilling = new EnumMap<>(GenerateSudoku.Difficulty.class);
+        this.recentlyGenerated = new EnumMap<>(GenerateSudoku.Difficulty.class);
+        this.heldVariants = new EnumMap<>(GenerateSudoku.Difficulty.class);
+
+        for (GenerateSudoku.Difficulty difficulty : GenerateSudoku.Difficulty.values()) {
+            puzzles.put(difficulty, new ArrayBlockingQueue<>(highWatermark));
+            refilling.put(difficulty, new AtomicBoolean(false));
+            heldVariants.put(difficulty, new HeldVariants());
+
+            int remembered = 4 * highWatermark;
+            recentlyGenerated.put(difficulty, Collections.synchronizedSet(Collections.newSetFromMap(
+                    new LinkedHashMap<Board, Boolean>() {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<Board, Boolean> eldest) {
+                            return size() > remembered;
+                        }
+                    })));
+        }
+
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-pool-worker");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts filling all queues in the background.
+     */
+    public void start() {
+        for (GenerateSudoku.Difficulty difficulty : GenerateSudoku.Difficulty.values()) {
+            requestRefill(difficulty);
+        }
+    }
+
+    /**
+     * Takes a puzzle from the pool, or generates one if the pool for this difficulty is empty.
+     */
+    public Puzzle take(GenerateSudoku.Difficulty difficulty) {
+        BlockingQueue<Puzzle> queue = puzzles.get(difficulty);
+        Puzzle puzzle = queue.poll();
+
+        if (queue.size() < lowWatermark || puzzle == null) {
+            requestRefill(difficulty);
+        }
+        if (puzzle == null) {
+            puzzle = generate(new GenerateSudoku(), difficulty);
+        }
+        return puzzle;
+    }
+
+    public int size(GenerateSudoku.Difficulty difficulty) {
+        return puzzles.get(difficulty).size();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void requestRefill(GenerateSudoku.Difficulty difficulty) {
+        // at most one refill per difficulty is queued or running at a time
+        if (refilling.get(difficulty).compareAndSet(false, true)) {
+            workers.execute(() -> refill(difficulty));
+        }
+    }
+
+    private void refill(GenerateSudoku.Difficulty difficulty) {
+        BlockingQueue<Puzzle> queue = puzzles.get(difficulty);
+        HeldVariants held = heldVariants.get(difficulty);
+        GenerateSudoku generateSudoku = new GenerateSudoku();
+        try {
+            while (queue.size() < highWatermark && !Thread.currentThread().isInterrupted()) {
+                // a due variant saves a generation
+                HeldVariant variant = held.pending.peek();
+                if (variant != null && variant.due <= held.queued) {
+                    held.pending.poll();
+                    Canonicalizer.Transform transform = Canonicalizer.randomTransform(ThreadLocalRandom.current());
+                    if (!queue.offer(new Puzzle(transform.apply(variant.puzzle.getClues()),
+                            transform.apply(variant.puzzle.getSolution())))) {
+                        held.pending.add(variant);
+                        break;
+                    }
+                    held.queued += 1;
+                    if (variant.remaining > 1) {
+                        held.pending.add(new HeldVariant(variant.puzzle, variant.remaining - 1,
+                                held.queued + highWatermark));
+                    }
+                    continue;
+                }
+
+                Puzzle puzzle = generate(generateSudoku, difficulty);
+                if (!recentlyGenerated.get(difficulty).add(
+                        Canonicalizer.canonicalKey(puzzle.getClues().toGrid()))) {
+                    continue;
+                }
+                if (!queue.offer(puzzle)) {
+                    break;
+                }
+                held.queued += 1;
+                if (variantsPerPuzzle > 0) {
+                    held.pending.add(new HeldVariant(puzzle, variantsPerPuzzle, held.queued + highWatermark));
+                }
+            }
+        } finally {
+            refilling.get(difficulty).set(false);
+        }
+    }
+
+    private Puzzle generate(GenerateSudoku generateSudoku, GenerateSudoku.Difficulty difficulty) {
+        long uniquenessChecks = generateSudoku.getUniquenessChecks();
+        long nodes = generateSudoku.getNodes();
+        long start = System.nanoTime();
+
+        Puzzle puzzle = generateSudoku.generatePuzzle(difficulty);
+        metrics.recordGeneration(difficulty, System.nanoTime() - start,
+                generateSudoku.getUniquenessChecks() - uniquenessChecks, generateSudoku.getNodes() - nodes);
+        return puzzle;
+    }
+
+    /**
+     * The variants of a difficulty which wait for their turn.
+     */
+    private static class HeldVariants {
+        private final PriorityQueue<HeldVariant> pending = new PriorityQueue<>(
+                (first, second) -> Long.compare(first.due, second.due));
+        // the number of puzzles queued so far, which numbers the positions in the queue
+        private long queued;
+    }
+
+    private static class HeldVariant {
+        private final Puzzle puzzle;
+        private final int remaining;
+        private final long due;
+
+        /**
+         * @param puzzle    - the puzzle which is transformed.
+         * @param remaining - the number of variants still to be queued.
+         * @param due       - the position in the queue after which the next variant may be queued.
+         */
+        HeldVariant(Puzzle puzzle, int remaining, long due) {
+            this.puzzle = puzzle;
+            this.remaining = remaining;
+            this.due = due;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.sudoku.server;
+
+import com.sudoku.GameResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append only journal of game results with fixed width records. Every segment file is memory mapped at its full size,
+ * so appending a record is a few puts into the mapped buffer. When a segment is full, it is forced to disk and a new
+ * one is started. Scanning reads the records straight from the mapped segments without parsing any text.
+ * <p>
+ * Record layout(64 bytes):
+ * <pre>
+ *  0     marker, 1 for a written record and 0 for free space
+ *  1     difficulty ordinal
+ *  2     outcome ordinal
+ *  3     length of the username in bytes
+ *  4-11  server time in milliseconds
+ *  12-19 elapsed seconds
+ *  20-63 username, UTF-8, truncated to 44 bytes
+ * </pre>
+ */
+public class ResultJournal implements Closeable {
+    public static final int RECORD_SIZE = 64;
+
+    private static final int MARKER = 0;
+    private static final int DIFFICULTY = 1;
+    private static final int OUTCOME = 2;
+    private static final int USERNAME_LENGTH = 3;
+    private static final int TIMESTAMP = 4;
+    private static final int ELAPSED_SECONDS = 12;
+    private static final int USERNAME = 20;
+    private static final int MAX_USERNAME_BYTES = RECORD_SIZE - USERNAME;
+
+    private static final String SEGMENT_PREFIX = "results-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final List<Path> segments;
+
+    private Path currentSegment;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    // records written to the current segment
+    private volatile int position;
+    private boolean closed;
+
+    /**
+     * Opens the journal in the directory and continues after the last written record.
+     */
+    public ResultJournal(Path directory, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment < 1) {
+            throw new IllegalArgumentException("A segment must hold at least one record");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.segments = new ArrayList<>();
+
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        // the segment numbers are zero padded, so the names sort in the order the segments were created
+        Collections.sort(segments);
+
+        if (segments.isEmpty()) {
+            openSegment(newSegmentPath(0));
+        } else {
+            openSegment(segments.remove(segments.size() - 1));
+            int records = 0;
+            while (records < recordsPerSegment && buffer.get(records * RECORD_SIZE + MARKER) != 0) {
+                records += 1;
+            }
+            position = records;
+        }
+    }
+
+    public synchronized void append(GameResult result) throws IOException {
+        if (closed) {
+            throw new IOException("The result journal is closed");
+        }
+        if (position == recordsPerSegment) {
+            rollOver();
+        }
+
+        byte username[] = truncate(result.getUsername());
+        int offset = position * RECORD_SIZE;
+
+        buffer.put(offset + DIFFICULTY, (byte) result.getDifficulty().ordinal());
+        buffer.put(offset + OUTCOME, (byte) result.getOutcome().ordinal());
+        buffer.put(offset + USERNAME_LENGTH, (byte) username.length);
+        buffer.putLong(offset + TIMESTAMP, System.currentTimeMillis());
+        buffer.putLong(offset + ELAPSED_SECONDS, result.getElapsedSeconds());
+        for (int i = 0; i < username.length; i += 1) {
+            buffer.put(offset + USERNAME + i, username[i]);
+        }
+        // the marker is written last, so a crash in the middle of an append leaves free space behind
+        buffer.put(offset + MARKER, (byte) 1);
+
+        position += 1;
+    }
+
+    /**
+     * Passes every record to the visitor, oldest first. The visitor gets the same JournalRecord object for every
+     * record, so it must copy what it wants to keep.
+     */
+    public void scan(Consumer<JournalRecord> visitor) throws IOException {
+        List<Path> closedSegments;
+        Path current;
+        int records;
+        synchronized (this) {
+            closedSegments = new ArrayList<>(segments);
+            current = currentSegment;
+            records = position;
+        }
+
+        JournalRecord record = new JournalRecord();
+        for (Path segment : closedSegments) {
+            scanSegment(segment, recordsPerSegment, record, visitor);
+        }
+        scanSegment(current, records, record, visitor);
+    }
+
+    /**
+     * @return the number of records in the journal.
+     */
+    public synchronized long size() {
+        return (long) segments.size() * recordsPerSegment + position;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.force();
+        channel.close();
+    }
+
+    private void openSegment(Path segment) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        currentSegment = segment;
+        position = 0;
+    }
+
+    private void rollOver() throws IOException {
+        buffer.force();
+        channel.close();
+        segments.add(currentSegment);
+        openSegment(newSegmentPath(segments.size()));
+    }
+
+    private Path newSegmentPath(int number) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%06d", number) + SEGMENT_SUFFIX);
+    }
+
+    private void scanSegment(Path segment, int records, JournalRecord record, Consumer<JournalRecord> visitor)
+            throws IOException {
+        if (records == 0) {
+            return;
+        }
+        try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer data = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, (long) records * RECORD_SIZE);
+            for (int i = 0; i < records; i += 1) {
+                int offset = i * RECORD_SIZE;
+                if (data.get(offset + MARKER) == 0) {
+                    break;
+                }
+                record.moveTo(data, offset);
+                visitor.accept(record);
+            }
+        }
+    }
+
+    /**
+     * @return the username as it is read back from a record, cut to 44 UTF-8 bytes.
+     */
+    public static String storedUsername(String username) {
+        byte bytes[] = truncate(username);
+        return bytes.length == username.length() ? username : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes the username and cuts it to the record width without splitting a character.
+     */
+    private static byte[] truncate(String username) {
+        byte bytes[] = username.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_USERNAME_BYTES) {
+            return bytes;
+        }
+        int length = MAX_USERNAME_BYTES;
+        // continuation bytes of a multi-byte character start with 10
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length -= 1;
+        }
+        byte truncated[] = new byte[length];
+        System.arraycopy(bytes, 0, truncated, 0, length);
+        return truncated;
+    }
+
+    /**
+     * View of one record in a mapped segment. The fields are read from the buffer only when asked for.
+     */
+    public static class JournalRecord {
+        private static final GenerateSudoku.Difficulty DIFFICULTIES[] = GenerateSudoku.Difficulty.values();
+        private static final GameResult.Outcome OUTCOMES[] = GameResult.Outcome.values();
+
+        private ByteBuffer data;
+        private int offset;
+
+        private void moveTo(ByteBuffer data, int offset) {
+            this.data = data;
+            this.offset = offset;
+        }
+
+        public long getTimestamp() {
+            return data.getLong(offset + TIMESTAMP);
+        }
+
+        public long getElapsedSeconds() {
+            return data.getLong(offset + ELAPSED_SECONDS);
+        }
+
+        public GenerateSudoku.Difficulty getDifficulty() {
+            return DIFFICULTIES[data.get(offset + DIFFICULTY)];
+        }
+
+        public GameResult.Outcome getOutcome() {
+            return OUTCOMES[data.get(offset + OUTCOME)];
+        }
+
+        public String getUsername() {
+            byte bytes[] = new byte[data.get(offset + USERNAME_LENGTH)];
+            for (int i = 0; i < bytes.length; i += 1) {
+                bytes[i] = data.get(offset + USERNAME + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public GameResult toGameResult() {
+            return new GameResult(getUsername(), getElapsedSeconds(), getDifficulty(), getOutcome());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.sudoku.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flag which is shared between searches running on different threads, so they can stop cooperatively once the answer
+ * is known or the deadline of the request has passed. The solvers only check it every few hundred nodes, so it costs
+ * almost nothing when nobody cancels.
+ */
+public class SearchCancellation {
+    private final SearchCancellation parent;
+    private final boolean hasDeadline;
+    // in System.nanoTime units
+    private final long deadline;
+    private volatile boolean cancelled;
+
+    public SearchCancellation() {
+        this(null, false, 0);
+    }
+
+    private SearchCancellation(SearchCancellation parent, boolean hasDeadline, long deadline) {
+        this.parent = parent;
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return a cancellation which cancels itself once the timeout has passed.
+     */
+    public static SearchCancellation withTimeout(long timeout, TimeUnit unit) {
+        return new SearchCancellation(null, true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @return a cancellation which can be cancelled on its own, but is also cancelled when this one is.
+     */
+    public SearchCancellation child() {
+        return new SearchCancellation(this, false, 0);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || hasExpired() || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * @return true if this cancellation or one of its parents has passed its deadline.
+     */
+    public boolean hasExpired() {
+        return (hasDeadline && System.nanoTime() - deadline >= 0) || (parent != null && parent.hasExpired());
+    }
+}
@@ -1,36 +1,376 @@
 package com.sudoku.server;
 
+import com.sudoku.Board;
+import com.sudoku.DeadlineExceededException;
+import com.sudoku.GameResult;
+import com.sudoku.LeaderboardEntry;
+import com.sudoku.PuzzleBatch;
 import com.sudoku.ServerInterface;
+import com.sudoku.SizedBoard;
+import com.sudoku.SolveResult;
+import com.sudoku.UserStats;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.rmi.RemoteException;
-import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
-public class ServerImpl extends UnicastRemoteObject implements ServerInterface {
+/**
+ * The operations of the server. It is exported with RMI or served by the BinaryServer, depending on the mode the
+ * server is started in.
+ */
+public class ServerImpl implements ServerInterface {
+    private static final int GRID_SIZE = 9;
 
-    private final GenerateSudoku generateSudoku;
+    private final PuzzlePool puzzlePool;
+    private final DailyPuzzles dailyPuzzles;
+    private final ForkJoinPool batchPool;
+    private final GameLog gameLog;
+    private final ResultJournal resultJournal;
+    private final Leaderboard leaderboard;
+    private final SolutionCache solutionCache;
+    private final AdmissionControl admissionControl;
+    private final long solveTimeoutMillis;
+    private final ServerMetrics metrics;
+    // generations keep their state per call, so all request threads share one generator
+    private final GenerateSudoku generateSudoku = new GenerateSudoku();
 
-    public ServerImpl() throws RemoteException {
-        super();
-        generateSudoku = new GenerateSudoku();
+    /**
+     * @param admissionControl   - limits the concurrent solving and generation requests.
+     * @param solveTimeoutMillis - the time after which a search is stopped.
+     * @param metrics            - records the latency of every request.
+     */
+    public ServerImpl(PuzzlePool puzzlePool, DailyPuzzles dailyPuzzles, ForkJoinPool batchPool, GameLog gameLog,
+                      ResultJournal resultJournal, Leaderboard leaderboard, SolutionCache solutionCache,
+                      AdmissionControl admissionControl, long solveTimeoutMillis, ServerMetrics metrics) {
+        this.puzzlePool = puzzlePool;
+        this.dailyPuzzles = dailyPuzzles;
+        this.batchPool = batchPool;
+        this.gameLog = gameLog;
+        this.resultJournal = resultJournal;
+        this.leaderboard = leaderboard;
+        this.solutionCache = solutionCache;
+        this.admissionControl = admissionControl;
+        this.solveTimeoutMillis = solveTimeoutMillis;
+        this.metrics = metrics;
     }
 
     @Override
     public int[][] generateSudoku(GenerateSudoku.Difficulty difficulty) throws RemoteException {
-        return generateSudoku.generate(difficulty);
+        return generateSudokuBoard(difficulty).toGrid();
+    }
+
+    @Override
+    public Board generateSudokuBoard(GenerateSudoku.Difficulty difficulty) throws RemoteException {
+        long start = metrics.startRequest();
+        try {
+            Puzzle puzzle = puzzlePool.take(difficulty);
+            // the client asks for the solution of exactly these clues when the Solve button is pressed
+            solutionCache.put(puzzle.getClues(), puzzle.getSolution());
+            return puzzle.getClues();
+        } finally {
+            metrics.finishGenerateRequest(difficulty, start);
+        }
+    }
+
+    @Override
+    public Board generateSudokuBoard(GenerateSudoku.Difficulty difficulty, long seed) throws RemoteException {
+        long start = metrics.startRequest();
+        try {
+            Puzzle puzzle;
+            // the pool can't serve a given seed, so the puzzle is generated on this thread
+            admissionControl.acquire();
+            try {
+                puzzle = generateSudoku.generatePuzzle(difficulty, false, seed);
+            } finally {
+                admissionControl.release();
+            }
+            solutionCache.put(puzzle.getClues(), puzzle.getSolution());
+            return puzzle.getClues();
+        } finally {
+            metrics.finishGenerateRequest(difficulty, start);
+        }
+    }
+
+    @Override
+    public Board getDailySudoku(GenerateSudoku.Difficulty difficulty) throws RemoteException {
+        long start = metrics.startRequest();
+        try {
+            Puzzle puzzle = dailyPuzzles.get(difficulty);
+            solutionCache.put(puzzle.getClues(), puzzle.getSolution());
+            return puzzle.getClues();
+        } finally {
+            metrics.finishGenerateRequest(difficulty, start);
+        }
+    }
+
+    @Override
+    public PuzzleBatch generateBatch(GenerateSudoku.Difficulty difficulty, int count) throws RemoteException {
+        if (count < 0 || count > PuzzleBatch.MAX_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 0 and " + PuzzleBatch.MAX_SIZE + ": " +
+                    count);
+        }
+        long start = metrics.startRequest();
+        try {
+            admissionControl.acquire();
+            try {
+                return generateSudoku.generateBatch(difficulty, count, batchPool);
+            } finally {
+                admissionControl.release();
+            }
+        } finally {
+            metrics.finishBatchRequest(difficulty, start);
+        }
+    }
+
+    @Override
+    public SizedBoard generateSudokuBoard(int size, GenerateSudoku.Difficulty difficulty) throws RemoteException {
+        int boxSize = SizedBoard.boxSizeOf(size);
+        if (size == GRID_SIZE) {
+            // 9x9 puzzles come from the pool, so they are rated like the others
+            return SizedBoard.fromBoard(generateSudokuBoard(difficulty));
+        }
+
+        metrics.startRequest();
+        try {
+            admissionControl.acquire();
+            try {
+                return new SizedGenerator(boxSize).generate(difficulty);
+            } finally {
+                admissionControl.release();
+            }
+        } finally {
+            metrics.finishRequest();
+        }
     }
 
     @Override
     public int[][] solveSudoku(int[][] grid) throws RemoteException {
-        generateSudoku.solve(grid);
+        if (GridValidator.validate(grid) != null) {
+            // it can't be solved and is returned unchanged
+            return grid;
+        }
+
+        Board solution = solveSudoku(Board.fromGrid(grid));
+        for (int row = 0; row < grid.length; row += 1) {
+            for (int column = 0; column < grid[row].length; column += 1) {
+                grid[row][column] = solution.get(row, column);
+            }
+        }
+        return grid;
+    }
+
+    @Override
+    public int[][] solveSudoku(int[][] grid, SolverEngine engine) throws RemoteException {
+        if (GridValidator.validate(grid) != null) {
+            return grid;
+        }
+
+        // the engine works on a copy, so the grid is never left half solved
+        int copy[][] = Board.fromGrid(grid).toGrid();
+        SudokuSolver solver = engine.newSolver();
+        long start = metrics.startRequest();
+        try {
+            admissionControl.acquire();
+            try {
+                if (!solve(solver, copy)) {
+                    return grid;
+                }
+            } finally {
+                admissionControl.release();
+            }
+        } finally {
+            metrics.finishSolveRequest(start, solver.getNodes());
+        }
+        for (int row = 0; row < grid.length; row += 1) {
+            System.arraycopy(copy[row], 0, grid[row], 0, grid[row].length);
+        }
         return grid;
     }
 
+    @Override
+    public Board solveSudoku(Board board) throws RemoteException {
+        Board solution = solve(board).getSolution();
+        return solution != null ? solution : board;
+    }
+
+    @Override
+    public SolveResult solve(int[][] grid) throws RemoteException {
+        String problem = GridValidator.validate(grid);
+        if (problem != null) {
+            return SolveResult.invalidInput(problem);
+        }
+        return solve(Board.fromGrid(grid));
+    }
+
+    @Override
+    public SolveResult solve(Board board) throws RemoteException {
+        BitmaskSolver solver = new BitmaskSolver();
+        long start = metrics.startRequest();
+        try {
+            return solve(board, solver);
+        } finally {
+            metrics.finishSolveRequest(start, solver.getNodes());
+        }
+    }
+
+    private SolveResult solve(Board board, BitmaskSolver solver) throws RemoteException {
+        String problem = GridValidator.validate(board);
+        if (problem != null) {
+            return SolveResult.invalidInput(problem);
+        }
+        // only unique solutions are cached
+        Board cached = solutionCache.get(board);
+        if (cached != null) {
+            return SolveResult.solved(cached);
+        }
+
+        int count;
+        admissionControl.acquire();
+        try {
+            count = countSolutions(solver, board.toGrid(), 2);
+        } finally {
+            admissionControl.release();
+        }
+        if (count == 0) {
+            return SolveResult.noSolution();
+        }
+
+        int cells[] = new int[GRID_SIZE * GRID_SIZE];
+        solver.copySolution(cells);
+        int grid[][] = new int[GRID_SIZE][GRID_SIZE];
+        for (int i = 0; i < cells.length; i += 1) {
+            grid[i / GRID_SIZE][i % GRID_SIZE] = cells[i];
+        }
+        Board solution = Board.fromGrid(grid);
+
+        if (count > 1) {
+            return SolveResult.multiple(solution);
+        }
+        solutionCache.put(board, solution);
+        return SolveResult.solved(solution);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the board has conflicting clues.
+     */
+    @Override
+    public SizedBoard solveSudoku(SizedBoard board) throws RemoteException {
+        String problem = GridValidator.validate(board);
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+
+        SizedSolver solver = new SizedSolver(board.getBoxSize());
+        int grid[][] = board.toGrid();
+        long start = metrics.startRequest();
+        try {
+            admissionControl.acquire();
+            try {
+                if (!solve(solver, grid)) {
+                    return board;
+                }
+            } finally {
+                admissionControl.release();
+            }
+        } finally {
+            metrics.finishSolveRequest(start, solver.getNodes());
+        }
+        return SizedBoard.fromGrid(grid);
+    }
+
+    /**
+     * Solves the grid, but stops the search at the deadline of the request.
+     *
+     * @throws DeadlineExceededException if the search was stopped before a solution was found.
+     */
+    private boolean solve(SudokuSolver solver, int grid[][]) throws DeadlineExceededException {
+        SearchCancellation deadline = newDeadline(solver);
+        if (solver.solve(grid)) {
+            return true;
+        }
+        if (deadline.hasExpired()) {
+            throw deadlineExceeded();
+        }
+        return false;
+    }
+
+    /**
+     * Counts the solutions, but stops the search at the deadline of the request.
+     *
+     * @throws DeadlineExceededException if the search was stopped before the limit was reached, so the count is not
+     *                                   known.
+     */
+    private int countSolutions(SudokuSolver solver, int grid[][], int limit) throws DeadlineExceededException {
+        SearchCancellation deadline = newDeadline(solver);
+        int count = solver.countSolutions(grid, limit);
+        if (count < limit && deadline.hasExpired()) {
+            throw deadlineExceeded();
+        }
+        return count;
+    }
+
+    private SearchCancellation newDeadline(SudokuSolver solver) {
+        SearchCancellation deadline = SearchCancellation.withTimeout(solveTimeoutMillis, TimeUnit.MILLISECONDS);
+        solver.setCancellation(deadline);
+        return deadline;
+    }
+
+    private DeadlineExceededException deadlineExceeded() {
+        return new DeadlineExceededException("The search was stopped after " + solveTimeoutMillis + " ms");
+    }
+
+    public AdmissionControl getAdmissionControl() {
+        return admissionControl;
+    }
+
+    public SolutionCache getSolutionCache() {
+        return solutionCache;
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public void writeToFile(String line) throws IOException {
-        FileWriter fileWriter = new FileWriter("log.txt", true);
-        fileWriter.write(line + "\n");
-        fileWriter.close();
+        long start = metrics.startRequest();
+        try {
+            gameLog.append(line);
+
+            // older clients send the results as text
+            GameResult result = GameResult.fromLogLine(line);
+            if (result != null) {
+                resultJournal.append(result);
+                leaderboard.record(result);
+            }
+        } finally {
+            metrics.finishLogWrite(start);
+        }
+    }
+
+    @Override
+    public void submitResult(GameResult result) throws IOException {
+        long start = metrics.startRequest();
+        try {
+            resultJournal.append(result);
+            leaderboard.record(result);
+            // log.txt keeps getting the same lines as before
+            gameLog.append(result.toLogLine());
+        } finally {
+            metrics.finishLogWrite(start);
+        }
+    }
+
+    @Override
+    public List<LeaderboardEntry> getTopTimes(GenerateSudoku.Difficulty difficulty, int count)
+            throws RemoteException {
+        return leaderboard.getTopTimes(difficulty, count);
+    }
+
+    @Override
+    public UserStats getUserStats(String username) throws RemoteException {
+        return leaderboard.getUserStats(username);
     }
 }
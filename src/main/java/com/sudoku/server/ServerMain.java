@@ -1,20 +1,113 @@
 package com.sudoku.server;
 
+import com.sudoku.BinaryProtocol;
 import com.sudoku.ServerInterface;
 
-import java.net.MalformedURLException;
+import javax.management.JMException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
 import java.rmi.Naming;
-import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
+import java.rmi.server.UnicastRemoteObject;
+import java.time.Clock;
+import java.util.concurrent.ForkJoinPool;
 
 public class ServerMain {
-    public static void main(String[] args) throws RemoteException, MalformedURLException {
-        ServerInterface obj = new ServerImpl();
+    /**
+     * @param args - the mode: "rmi"(the default) for the RMI registry used by the existing clients, "binary" for the
+     *             BinaryServer or "both".
+     */
+    public static void main(String[] args) throws IOException, JMException {
+        String mode = args.length > 0 ? args[0] : "rmi";
+        if (!mode.equals("rmi") && !mode.equals("binary") && !mode.equals("both")) {
+            System.err.println("Usage: ServerMain [rmi|binary|both]");
+            System.exit(1);
+        }
 
-        LocateRegistry.createRegistry(4999);
-        Naming.rebind("rmi://localhost:4999" + "/sudoku", obj);
+        ServerMetrics metrics = new ServerMetrics();
+
+        // the pool can be tuned with -Dsudoku.pool.low, -Dsudoku.pool.high, -Dsudoku.pool.workers and
+        // -Dsudoku.pool.variants
+        PuzzlePool puzzlePool = new PuzzlePool(Integer.getInteger("sudoku.pool.low", 5),
+                Integer.getInteger("sudoku.pool.high", 20), Integer.getInteger("sudoku.pool.workers", 2),
+                Integer.getInteger("sudoku.pool.variants", 3), metrics);
+        puzzlePool.start();
+        for (GenerateSudoku.Difficulty difficulty : GenerateSudoku.Difficulty.values()) {
+            metrics.addGauge("sudoku_pool_size{difficulty=\"" + difficulty + "\"}", () -> puzzlePool.size(difficulty));
+        }
+
+        ForkJoinPool batchPool = new ForkJoinPool(Integer.getInteger("sudoku.batch.parallelism",
+                Runtime.getRuntime().availableProcessors()));
+
+        GameLog gameLog = new GameLog(Paths.get("log.txt"), Integer.getInteger("sudoku.log.capacity", 10_000),
+                Integer.getInteger("sudoku.log.batch", 256), Long.getLong("sudoku.log.flushMs", 100));
+        ResultJournal resultJournal = new ResultJournal(Paths.get(System.getProperty("sudoku.journal.dir", "results")),
+                Integer.getInteger("sudoku.journal.segmentRecords", 262_144));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                gameLog.close();
+                resultJournal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+
+        metrics.addGauge("sudoku_log_queue_depth", gameLog::getQueueDepth);
+        metrics.addGauge("sudoku_log_blocked_appends_total", gameLog::getBlockedAppends);
+
+        Leaderboard leaderboard = Leaderboard.load(resultJournal);
+
+        SolutionCache solutionCache = new SolutionCache(Integer.getInteger("sudoku.cache.capacity", 100_000));
+        metrics.addGauge("sudoku_cache_size", solutionCache::size);
+        metrics.addGauge("sudoku_cache_hits_total", solutionCache::getHits);
+        metrics.addGauge("sudoku_cache_misses_total", solutionCache::getMisses);
+        metrics.addGauge("sudoku_cache_evictions_total", solutionCache::getEvictions);
+
+        // at most -Dsudoku.admission.concurrent solving requests run at the same time, -Dsudoku.admission.waiting more
+        // can wait -Dsudoku.admission.waitMs for a free slot and every search is stopped after -Dsudoku.solve.timeoutMs
+        AdmissionControl admissionControl = new AdmissionControl(
+                Integer.getInteger("sudoku.admission.concurrent", Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger("sudoku.admission.waiting", 64), Long.getLong("sudoku.admission.waitMs", 1000));
+        metrics.addGauge("sudoku_admission_active", admissionControl::getActive);
+        metrics.addGauge("sudoku_admission_waiting", admissionControl::getWaiting);
+        metrics.addGauge("sudoku_admission_rejected_total", admissionControl::getRejected);
+
+        DailyPuzzles dailyPuzzles = new DailyPuzzles(Clock.systemUTC(), admissionControl, metrics);
+
+        ServerInterface obj = new ServerImpl(puzzlePool, dailyPuzzles, batchPool, gameLog, resultJournal, leaderboard,
+                solutionCache, admissionControl, Long.getLong("sudoku.solve.timeoutMs", 2000), metrics);
+
+        if (!mode.equals("binary")) {
+            LocateRegistry.createRegistry(4999);
+            Naming.rebind("rmi://localhost:4999" + "/sudoku", UnicastRemoteObject.exportObject(obj, 0));
+            System.out.println("Bound!");
+        }
+
+        if (!mode.equals("rmi")) {
+            // -Dsudoku.binary.port and -Dsudoku.binary.workers configure the binary protocol
+            BinaryServer binaryServer = new BinaryServer(obj,
+                    new InetSocketAddress(Integer.getInteger("sudoku.binary.port", BinaryProtocol.DEFAULT_PORT)),
+                    Integer.getInteger("sudoku.binary.workers", 2 * Runtime.getRuntime().availableProcessors()));
+            binaryServer.start();
+            metrics.addGauge("sudoku_binary_connections", binaryServer::getConnectionCount);
+            metrics.addGauge("sudoku_binary_queued_requests", binaryServer::getQueuedRequestCount);
+            System.out.println("Listening on port " + binaryServer.getPort());
+        }
+
+        // the HTTP API is started only when -Dsudoku.http.port is given
+        Integer httpPort = Integer.getInteger("sudoku.http.port");
+        if (httpPort != null) {
+            HttpApi httpApi = new HttpApi(obj, metrics, new InetSocketAddress(httpPort),
+                    Integer.getInteger("sudoku.http.threads", 4 * Runtime.getRuntime().availableProcessors()));
+            httpApi.start();
+            System.out.println("HTTP API on port " + httpApi.getPort());
+        }
+
+        // the metrics are also served on /metrics of the HTTP API
+        metrics.registerMBeans(ManagementFactory.getPlatformMBeanServer());
 
-        System.out.println("Bound!");
         System.out.println("Server will wait forever for messages.");
     }
 }
@@ -0,0 +1,199 @@
+package com.sudoku.server;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics of one server: latency histograms of the hot paths, counters of the search work and gauges of the
+ * queues and pools. The components record into the instance they are given, so several servers in one JVM don't mix
+ * their numbers.
+ * <p>
+ * The metrics are exposed through JMX under the com.sudoku domain and as Prometheus text, see writeText.
+ */
+public class ServerMetrics {
+    private final Map<GenerateSudoku.Difficulty, LatencyHistogram> generateRequests =
+            new EnumMap<>(GenerateSudoku.Difficulty.class);
+    private final Map<GenerateSudoku.Difficulty, LatencyHistogram> batchRequests =
+            new EnumMap<>(GenerateSudoku.Difficulty.class);
+    private final Map<GenerateSudoku.Difficulty, LatencyHistogram> puzzleGenerations =
+            new EnumMap<>(GenerateSudoku.Difficulty.class);
+    private final LatencyHistogram solveRequests = new LatencyHistogram();
+    private final LatencyHistogram logWrites = new LatencyHistogram();
+
+    private final LongAdder searchNodes = new LongAdder();
+    private final LongAdder uniquenessChecks = new LongAdder();
+    private final LongAdder generatedPuzzles = new LongAdder();
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    // name(with labels) -> current value
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+
+    public ServerMetrics() {
+        for (GenerateSudoku.Difficulty difficulty : GenerateSudoku.Difficulty.values()) {
+            generateRequests.put(difficulty, new LatencyHistogram());
+            batchRequests.put(difficulty, new LatencyHistogram());
+            puzzleGenerations.put(difficulty, new LatencyHistogram());
+        }
+        addGauge("sudoku_in_flight_requests", inFlightRequests::get);
+        addGauge("sudoku_search_nodes_total", searchNodes::sum);
+        addGauge("sudoku_uniqueness_checks_total", uniquenessChecks::sum);
+        addGauge("sudoku_generated_puzzles_total", generatedPuzzles::sum);
+        addGauge("sudoku_uniqueness_checks_per_puzzle", () -> {
+            long puzzles = generatedPuzzles.sum();
+            return puzzles == 0 ? 0 : uniquenessChecks.sum() / puzzles;
+        });
+    }
+
+    /**
+     * Adds a value which is read every time the metrics are exported.
+     *
+     * @param name - the name of the metric, optionally with labels, like sudoku_pool_size{difficulty="EASY"}.
+     */
+    public synchronized void addGauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * @return the start of the request, to be passed to one of the finish methods.
+     */
+    public long startRequest() {
+        inFlightRequests.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void finishRequest() {
+        inFlightRequests.decrementAndGet();
+    }
+
+    public void finishGenerateRequest(GenerateSudoku.Difficulty difficulty, long startNanos) {
+        generateRequests.get(difficulty).recordSince(startNanos);
+        finishRequest();
+    }
+
+    public void finishBatchRequest(GenerateSudoku.Difficulty difficulty, long startNanos) {
+        batchRequests.get(difficulty).recordSince(startNanos);
+        finishRequest();
+    }
+
+    /**
+     * @param nodes - the number of search nodes the request visited.
+     */
+    public void finishSolveRequest(long startNanos, long nodes) {
+        solveRequests.recordSince(startNanos);
+        searchNodes.add(nodes);
+        finishRequest();
+    }
+
+    public void finishLogWrite(long startNanos) {
+        logWrites.recordSince(startNanos);
+        finishRequest();
+    }
+
+    /**
+     * Records a puzzle generated by the pool or on a request thread.
+     *
+     * @param uniquenessChecks - how many times the uniqueness of the puzzle was checked while digging it.
+     * @param nodes            - the search nodes of the generation, including the uniqueness checks.
+     */
+    public void recordGeneration(GenerateSudoku.Difficulty difficulty, long nanos, long uniquenessChecks,
+                                 long nodes) {
+        puzzleGenerations.get(difficulty).record(nanos);
+        this.uniquenessChecks.add(uniquenessChecks);
+        searchNodes.add(nodes);
+        generatedPuzzles.increment();
+    }
+
+    public LatencyHistogram getSolveRequests() {
+        return solveRequests;
+    }
+
+    public LatencyHistogram getLogWrites() {
+        return logWrites;
+    }
+
+    public LatencyHistogram getGenerateRequests(GenerateSudoku.Difficulty difficulty) {
+        return generateRequests.get(difficulty);
+    }
+
+    public LatencyHistogram getBatchRequests(GenerateSudoku.Difficulty difficulty) {
+        return batchRequests.get(difficulty);
+    }
+
+    public LatencyHistogram getPuzzleGenerations(GenerateSudoku.Difficulty difficulty) {
+        return puzzleGenerations.get(difficulty);
+    }
+
+    /**
+     * Registers every histogram and every gauge added so far as an MBean.
+     */
+    public synchronized void registerMBeans(MBeanServer server) throws JMException {
+        for (GenerateSudoku.Difficulty difficulty : GenerateSudoku.Difficulty.values()) {
+            registerHistogram(server, "generate_request,difficulty=" + difficulty, generateRequests.get(difficulty));
+            registerHistogram(server, "batch_request,difficulty=" + difficulty, batchRequests.get(difficulty));
+            registerHistogram(server, "puzzle_generation,difficulty=" + difficulty, puzzleGenerations.get(difficulty));
+        }
+        registerHistogram(server, "solve_request", solveRequests);
+        registerHistogram(server, "log_write", logWrites);
+
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            LongSupplier value = gauge.getValue();
+            server.registerMBean(new StandardMBean(new GaugeMBean() {
+                @Override
+                public long getValue() {
+                    return value.getAsLong();
+                }
+            }, GaugeMBean.class), new ObjectName("com.sudoku:type=Gauge,name=" + ObjectName.quote(gauge.getKey())));
+        }
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format.
+     */
+    public void writeText(Appendable out) throws IOException {
+        writeFamily(out, "sudoku_generate_request_seconds", generateRequests);
+        writeFamily(out, "sudoku_batch_request_seconds", batchRequests);
+        writeFamily(out, "sudoku_puzzle_generation_seconds", puzzleGenerations);
+        out.append("# TYPE sudoku_solve_request_seconds histogram\n");
+        solveRequests.writeText(out, "sudoku_solve_request_seconds", "");
+        out.append("# TYPE sudoku_log_write_seconds histogram\n");
+        logWrites.writeText(out, "sudoku_log_write_seconds", "");
+
+        Map<String, LongSupplier> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(gauges);
+        }
+        for (Map.Entry<String, LongSupplier> gauge : snapshot.entrySet()) {
+            out.append(gauge.getKey()).append(' ').append(Long.toString(gauge.getValue().getAsLong())).append('\n');
+        }
+    }
+
+    private static void writeFamily(Appendable out, String name,
+                                    Map<GenerateSudoku.Difficulty, LatencyHistogram> histograms) throws IOException {
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        for (Map.Entry<GenerateSudoku.Difficulty, LatencyHistogram> histogram : histograms.entrySet()) {
+            histogram.getValue().writeText(out, name, "difficulty=\"" + histogram.getKey() + "\"");
+        }
+    }
+
+    private static void registerHistogram(MBeanServer server, String name, LatencyHistogram histogram)
+            throws JMException {
+        server.registerMBean(new StandardMBean(histogram, LatencyHistogramMBean.class),
+                new ObjectName("com.sudoku:type=Latency,name=" + name));
+    }
+
+    /**
+     * The JMX view of a gauge.
+     */
+    public interface GaugeMBean {
+        long getValue();
+    }
+}
@@ -0,0 +1,254 @@
+package com.sudoku.server;
+
+import com.sudoku.SizedBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates puzzles of any supported size and variant. The backtracking and rating of GenerateSudoku don't scale
+ * beyond 9x9, so a classic filled grid is made from a valid pattern shuffled with the symmetries of the board(digits,
+ * rows within a band, bands, columns within a stack and stacks). Variants are filled by the SizedSolver with random
+ * candidate order. Killer puzzles then get random cages of the filled grid.
+ * <p>
+ * Cells are removed in random order while the SizedSolver proves that the solution stays unique. Because the puzzle
+ * is unique before every removal, the proof is a single search for a solution with another value in the removed cell,
+ * which usually fails after a few nodes. The difficulty only sets the share of removed cells.
+ * <p>
+ * On 16x16 and 25x25 boards the checks beyond about 62% and 55% removed cells need more nodes than any reasonable
+ * budget, so the shares of the difficulties are scaled down to end there. The difficulties stay apart, but an Expert
+ * puzzle of a large board has more clues than a 9x9 one.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class SizedGenerator {
+    // a uniqueness check which needs more nodes is counted as failed, so one hard check can't stall the generation
+    private static final long NODES_PER_CHECK = 50;
+    // a random fill which needs more nodes is started again, at most MAX_FILL_ATTEMPTS times
+    private static final long NODES_PER_FILL = 100_000;
+    private static final int MAX_FILL_ATTEMPTS = 20;
+    // the shares of removed cells which the checks reach on most filled grids of these sizes
+    private static final double MAX_REMOVED_SHARE_16 = 0.62;
+    private static final double MAX_REMOVED_SHARE_25 = 0.55;
+
+    private final ConstraintModel model;
+    private final int maxCageSize;
+    private final int size;
+    private final SizedSolver solver;
+    private long nodes;
+
+    /**
+     * Generator of classic puzzles.
+     *
+     * @param boxSize - the number of rows of a box, 2 to 5.
+     */
+    public SizedGenerator(int boxSize) {
+        this(ConstraintModel.classic(boxSize), 0);
+    }
+
+    /**
+     * @param model       - the rules of the puzzles.
+     * @param maxCageSize - 0, or the number of cells of the largest cage of Killer puzzles. The filled grid is split
+     *                    into random cages of connected cells, which are added to the rules of every puzzle.
+     */
+    public SizedGenerator(ConstraintModel model, int maxCageSize) {
+        if (maxCageSize < 0 || maxCageSize > model.getSize()) {
+            throw new IllegalArgumentException("Invalid cage size " + maxCageSize);
+        }
+        this.model = model;
+        this.maxCageSize = maxCageSize;
+        this.size = model.getSize();
+        this.solver = new SizedSolver(model);
+    }
+
+    public SizedBoard generate(GenerateSudoku.Difficulty difficulty) {
+        return generatePuzzle(difficulty).getClues();
+    }
+
+    public VariantPuzzle generatePuzzle(GenerateSudoku.Difficulty difficulty) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int cells[] = model.isClassic() ? patternGrid(random) : randomGrid(random);
+        SizedBoard solution = toBoard(cells);
+
+        ConstraintModel puzzleModel = model;
+        SizedSolver checker = solver;
+        if (maxCageSize > 0) {
+            puzzleModel = model.with(Constraints.killer(randomCages(cells, random)));
+            checker = new SizedSolver(puzzleModel);
+        }
+        checker.setRandom(null);
+        checker.setNodeBudget(NODES_PER_CHECK);
+
+        int cellCount = size * size;
+        double lowerShare = scaledShare(difficulty.getLowerShare());
+        double upperShare = scaledShare(difficulty.getUpperShare());
+        int cellsToRemove = (int) Math.round(cellCount *
+                (lowerShare + random.nextDouble() * (upperShare - lowerShare)));
+
+        int order[] = shuffled(cellCount, random);
+        int removed = 0;
+        long checkerNodes = checker.getNodes();
+        for (int cell : order) {
+            if (removed == cellsToRemove) {
+                break;
+            }
+            int backup = cells[cell];
+            cells[cell] = 0;
+            // the puzzle was unique, so another solution would need another value in this cell
+            if (checker.hasSolutionWithout(cells, cell, backup) || checker.wasStopped()) {
+                cells[cell] = backup;
+                continue;
+            }
+            removed += 1;
+        }
+        if (checker != solver) {
+            nodes += checker.getNodes() - checkerNodes;
+        }
+        return new VariantPuzzle(puzzleModel, toBoard(cells), solution);
+    }
+
+    /**
+     * @return the share of removed cells on this board size, from the share of a 9x9 puzzle. The range of all
+     * difficulties is squeezed below the share which the checks can reach.
+     */
+    private double scaledShare(double share) {
+        double easiest = GenerateSudoku.Difficulty.EASY.getLowerShare();
+        double hardest = GenerateSudoku.Difficulty.EXPERT.getUpperShare();
+        double reachable = size >= 25 ? MAX_REMOVED_SHARE_25 : size >= 16 ? MAX_REMOVED_SHARE_16 : hardest;
+        return easiest + (share - easiest) * (reachable - easiest) / (hardest - easiest);
+    }
+
+    /**
+     * @return the search nodes of all generations so far.
+     */
+    public long getNodes() {
+        return nodes + solver.getNodes();
+    }
+
+    /**
+     * @return a random filled grid of a classic board, row by row.
+     */
+    private int[] patternGrid(ThreadLocalRandom random) {
+        int boxSize = (int) Math.round(Math.sqrt(size));
+        int digits[] = shuffled(size, random);
+        int rows[] = shuffledLines(boxSize, random);
+        int columns[] = shuffledLines(boxSize, random);
+
+        int cells[] = new int[size * size];
+        for (int row = 0; row < size; row += 1) {
+            for (int column = 0; column < size; column += 1) {
+                // the pattern shifts every row of a band by one box and every band by one column
+                int r = rows[row];
+                int c = columns[column];
+                cells[row * size + column] = digits[(boxSize * (r % boxSize) + r / boxSize + c) % size] + 1;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @return a random filled grid which follows the rules of the model, row by row.
+     * @throws IllegalStateException if the rules have no solution, or none was found.
+     */
+    private int[] randomGrid(ThreadLocalRandom random) {
+        int cells[] = new int[size * size];
+        solver.setRandom(random);
+        solver.setNodeBudget(NODES_PER_FILL);
+        // a few random orders run into a long search, the next one usually doesn't
+        for (int attempt = 0; attempt < MAX_FILL_ATTEMPTS; attempt += 1) {
+            if (solver.countSolutions(new int[size * size], 1) > 0) {
+                solver.copySolution(cells);
+                return cells;
+            }
+            if (!solver.wasStopped()) {
+                break;
+            }
+        }
+        throw new IllegalStateException("No solution found for the rules " + model);
+    }
+
+    /**
+     * Splits the filled grid into cages of orthogonally connected cells with different digits.
+     */
+    private List<Constraint.Cage> randomCages(int cells[], ThreadLocalRandom random) {
+        int cageOf[] = new int[cells.length];
+        Arrays.fill(cageOf, -1);
+        List<Constraint.Cage> cages = new ArrayList<>();
+
+        int members[] = new int[maxCageSize];
+        int neighbours[] = new int[4 * maxCageSize];
+        for (int start : shuffled(cells.length, random)) {
+            if (cageOf[start] != -1) {
+                continue;
+            }
+            int target = maxCageSize == 1 ? 1 : 2 + random.nextInt(maxCageSize - 1);
+            int count = 0;
+            long used = 0;
+            int sum = 0;
+            int cell = start;
+            while (true) {
+                members[count++] = cell;
+                cageOf[cell] = cages.size();
+                used |= 1L << cells[cell];
+                sum += cells[cell];
+                if (count == target) {
+                    break;
+                }
+
+                int neighbourCount = 0;
+                for (int i = 0; i < count; i += 1) {
+                    int row = members[i] / size;
+                    int column = members[i] % size;
+                    int around[] = {row > 0 ? members[i] - size : -1, row < size - 1 ? members[i] + size : -1,
+                            column > 0 ? members[i] - 1 : -1, column < size - 1 ? members[i] + 1 : -1};
+                    for (int neighbour : around) {
+                        if (neighbour != -1 && cageOf[neighbour] == -1 && (used & (1L << cells[neighbour])) == 0) {
+                            neighbours[neighbourCount++] = neighbour;
+                        }
+                    }
+                }
+                if (neighbourCount == 0) {
+                    break;
+                }
+                cell = neighbours[random.nextInt(neighbourCount)];
+            }
+            cages.add(new Constraint.Cage(sum, Arrays.copyOf(members, count)));
+        }
+        return cages;
+    }
+
+    private SizedBoard toBoard(int cells[]) {
+        int grid[][] = new int[size][size];
+        for (int i = 0; i < cells.length; i += 1) {
+            grid[i / size][i % size] = cells[i];
+        }
+        return SizedBoard.fromGrid(grid);
+    }
+
+    /**
+     * @return the lines in an order which keeps the bands(or stacks) together.
+     */
+    private int[] shuffledLines(int boxSize, ThreadLocalRandom random) {
+        int bands[] = shuffled(boxSize, random);
+        int lines[] = new int[size];
+        for (int band = 0; band < boxSize; band += 1) {
+            int withinBand[] = shuffled(boxSize, random);
+            for (int i = 0; i < boxSize; i += 1) {
+                lines[band * boxSize + i] = bands[band] * boxSize + withinBand[i];
+            }
+        }
+        return lines;
+    }
+
+    private static int[] shuffled(int count, ThreadLocalRandom random) {
+        int values[] = new int[count];
+        for (int i = 0; i < count; i += 1) {
+            int j = random.nextInt(i + 1);
+            values[i] = values[j];
+            values[j] = i;
+        }
+        return values;
+    }
+}
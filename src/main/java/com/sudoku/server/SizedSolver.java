@@ -0,0 +1,447 @@
+package com.sudoku.server;
+
+import java.util.Random;
+
+/**
+ * Solver for boards of any supported size(4x4 to 25x25) and any ConstraintModel. The candidates of every cell are a
+ * long bitmask, and every placed digit is removed from the candidates of its peers right away, so naked singles,
+ * hidden singles and contradictions are found without scanning the board. Cages drop the candidates which can't reach
+ * the sum of the cage. The search branches on the cell with the fewest candidates and copies the masks for every
+ * branch instead of undoing the changes.
+ * <p>
+ * The unit, peer and cage tables come from the model. Instances are not thread safe.
+ */
+public class SizedSolver implements SudokuSolver {
+    private final ConstraintModel model;
+    private final int size;
+    private final int cellCount;
+    private final long allDigits;
+    private final int units[][];
+    private final int peers[][];
+    private final int cages[][];
+    private final int cageSums[];
+
+    // cells which were left with a single candidate and are placed by the next propagate
+    private final int singles[];
+    private int singleCount;
+
+    private final int solution[];
+    private int solutionCount;
+    private int limit;
+
+    private SearchCancellation cancellation;
+    private long nodes;
+    private long nodeBudget = Long.MAX_VALUE;
+    private long budgetEnd;
+    private boolean stopped;
+    // the order in which the candidates of a cell are tried, null for ascending
+    private Random random;
+
+    /**
+     * Solver for classic boards.
+     *
+     * @param boxSize - the number of rows of a box, 2 to 5.
+     */
+    public SizedSolver(int boxSize) {
+        this(ConstraintModel.classic(boxSize));
+    }
+
+    public SizedSolver(ConstraintModel model) {
+        this.model = model;
+        this.size = model.getSize();
+        this.cellCount = size * size;
+        this.allDigits = (1L << size) - 1;
+        this.units = model.getUnits();
+        this.peers = model.getPeers();
+        this.cages = model.getCages();
+        this.cageSums = model.getCageSums();
+        this.solution = new int[cellCount];
+        this.singles = new int[cellCount];
+    }
+
+    public ConstraintModel getModel() {
+        return model;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Tries the candidates of every cell in random order, so solving an empty board gives a random filled board.
+     *
+     * @param random - the source of the order, or null for ascending digits.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public boolean solve(int grid[][]) {
+        if (countSolutions(grid, 1) == 0) {
+            return false;
+        }
+        for (int i = 0; i < cellCount; i += 1) {
+            grid[i / size][i % size] = solution[i];
+        }
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int grid[][], int limit) {
+        if (grid == null || grid.length != size) {
+            return 0;
+        }
+        int values[] = new int[cellCount];
+        for (int row = 0; row < size; row += 1) {
+            if (grid[row] == null || grid[row].length != size) {
+                return 0;
+            }
+            System.arraycopy(grid[row], 0, values, row * size, size);
+        }
+        return countSolutions(values, limit);
+    }
+
+    /**
+     * Counts the solutions of the cells, row by row, with 0 for empty cells. The cells are not modified.
+     *
+     * @return the number of solutions, at most limit. Invalid boards have 0 solutions.
+     */
+    public int countSolutions(int values[], int limit) {
+        return countSolutions(values, limit, -1, 0);
+    }
+
+    /**
+     * Checks whether the board has a solution with another value in the cell. If the board was unique before the
+     * value was removed from the cell, this proves that it is still unique without searching for two solutions.
+     *
+     * @param values - the cells, row by row, with 0 in the checked cell.
+     * @param value  - the value which is not allowed in the cell.
+     */
+    public boolean hasSolutionWithout(int values[], int cell, int value) {
+        return countSolutions(values, 1, cell, value) > 0;
+    }
+
+    private int countSolutions(int values[], int limit, int excludedCell, int excludedValue) {
+        this.limit = limit;
+        solutionCount = 0;
+        stopped = false;
+        budgetEnd = nodeBudget == Long.MAX_VALUE ? Long.MAX_VALUE : nodes + nodeBudget;
+        if (values.length != cellCount || limit < 1) {
+            return 0;
+        }
+
+        long candidates[] = new long[cellCount];
+        int board[] = new int[cellCount];
+        singleCount = 0;
+        for (int i = 0; i < cellCount; i += 1) {
+            candidates[i] = allDigits;
+        }
+        for (int i = 0; i < cellCount; i += 1) {
+            int value = values[i];
+            if (value == 0) {
+                continue;
+            }
+            if (value < 0 || value > size || (candidates[i] & (1L << (value - 1))) == 0 ||
+                    !assign(candidates, board, i, value)) {
+                return 0;
+            }
+        }
+        if (excludedCell >= 0) {
+            candidates[excludedCell] &= ~(1L << (excludedValue - 1));
+            if (board[excludedCell] == 0 && candidates[excludedCell] == 0) {
+                return 0;
+            }
+            if (Long.bitCount(candidates[excludedCell]) == 1) {
+                singles[singleCount++] = excludedCell;
+            }
+        }
+
+        search(candidates, board);
+        return solutionCount;
+    }
+
+    /**
+     * Copies the first solution found by the last search, row by row.
+     */
+    public void copySolution(int target[]) {
+        System.arraycopy(solution, 0, target, 0, cellCount);
+    }
+
+    @Override
+    public void setCancellation(SearchCancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Stops every following search after the given number of nodes, so a board which is too hard to check can be
+     * skipped. Long.MAX_VALUE means no limit.
+     */
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * @return true if the last search was stopped by the cancellation or the node budget, so its count may be too
+     * low.
+     */
+    public boolean wasStopped() {
+        return stopped;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return true when the search should stop, because the limit is reached or the search was stopped.
+     */
+    private boolean search(long candidates[], int board[]) {
+        nodes += 1;
+        if (nodes >= budgetEnd ||
+                ((nodes & 0xFF) == 0 && cancellation != null && cancellation.isCancelled())) {
+            stopped = true;
+        }
+        if (stopped) {
+            return true;
+        }
+
+        if (!propagate(candidates, board)) {
+            return false;
+        }
+
+        // minimum remaining values: branch on the cell with the fewest candidates
+        int bestCell = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = 0; i < cellCount; i += 1) {
+            if (board[i] == 0) {
+                int count = Long.bitCount(candidates[i]);
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestCell = i;
+                    if (count == 2) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (bestCell == -1) {
+            solutionCount += 1;
+            if (solutionCount == 1) {
+                System.arraycopy(board, 0, solution, 0, cellCount);
+            }
+            return solutionCount >= limit;
+        }
+
+        long remaining = candidates[bestCell];
+        while (remaining != 0) {
+            long bit = nextCandidate(remaining);
+            remaining ^= bit;
+
+            long branchCandidates[] = candidates.clone();
+            int branchBoard[] = board.clone();
+            singleCount = 0;
+            if (assign(branchCandidates, branchBoard, bestCell, Long.numberOfTrailingZeros(bit) + 1) &&
+                    search(branchCandidates, branchBoard)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the lowest candidate, or a random one if a random order is set.
+     */
+    private long nextCandidate(long candidates) {
+        if (random == null) {
+            return candidates & -candidates;
+        }
+        for (int skip = random.nextInt(Long.bitCount(candidates)); skip > 0; skip -= 1) {
+            candidates &= candidates - 1;
+        }
+        return candidates & -candidates;
+    }
+
+    /**
+     * Places the value and removes it from the candidates of the peers. Peers which are left with one candidate are
+     * queued for propagate.
+     *
+     * @return false if a peer has no candidates left.
+     */
+    private boolean assign(long candidates[], int board[], int cell, int value) {
+        long bit = 1L << (value - 1);
+        board[cell] = value;
+        candidates[cell] = 0;
+        for (int peer : peers[cell]) {
+            long remaining = candidates[peer];
+            if ((remaining & bit) != 0) {
+                remaining &= ~bit;
+                candidates[peer] = remaining;
+                if (remaining == 0) {
+                    return false;
+                }
+                if ((remaining & (remaining - 1)) == 0) {
+                    singles[singleCount++] = peer;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places naked singles and hidden singles until none are left.
+     *
+     * @return false if a contradiction was found.
+     */
+    private boolean propagate(long candidates[], int board[]) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            while (singleCount > 0) {
+                int cell = singles[--singleCount];
+                // a queued cell may already be placed as a hidden single
+                if (board[cell] == 0 &&
+                        !assign(candidates, board, cell, Long.numberOfTrailingZeros(candidates[cell]) + 1)) {
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < cages.length; i += 1) {
+                int result = restrictCage(candidates, board, cages[i], cageSums[i]);
+                if (result < 0) {
+                    return false;
+                }
+                changed |= result > 0;
+            }
+            if (changed) {
+                // the singles of the cages are placed before the units are scanned
+                continue;
+            }
+
+            for (int unit[] : units) {
+                long once = 0;
+                long twice = 0;
+                long placed = 0;
+                for (int cell : unit) {
+                    if (board[cell] != 0) {
+                        placed |= 1L << (board[cell] - 1);
+                    } else {
+                        twice |= once & candidates[cell];
+                        once |= candidates[cell];
+                    }
+                }
+                if ((once | placed) != allDigits) {
+                    // a digit has no place left in this unit
+                    return false;
+                }
+
+                long hidden = once & ~twice & ~placed;
+                while (hidden != 0) {
+                    long bit = hidden & -hidden;
+                    hidden ^= bit;
+
+                    int target = -1;
+                    for (int cell : unit) {
+                        if ((candidates[cell] & bit) != 0) {
+                            target = cell;
+                            break;
+                        }
+                    }
+                    // the cell was taken by another hidden single of the unit
+                    if (target == -1 || !assign(candidates, board, target, Long.numberOfTrailingZeros(bit) + 1)) {
+                        return false;
+                    }
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the candidates of the empty cells of the cage which can't be completed to the sum with different digits
+     * in the other empty cells. Cells which are left with one candidate are queued.
+     *
+     * @return -1 if the cage can't reach its sum, 1 if a candidate was removed, 0 otherwise.
+     */
+    private int restrictCage(long candidates[], int board[], int cage[], int sum) {
+        int remaining = sum;
+        int empty = 0;
+        long used = 0;
+        long free = 0;
+        for (int cell : cage) {
+            if (board[cell] != 0) {
+                remaining -= board[cell];
+                used |= 1L << (board[cell] - 1);
+            } else {
+                empty += 1;
+                free |= candidates[cell];
+            }
+        }
+        if (empty == 0) {
+            return remaining == 0 ? 0 : -1;
+        }
+        free &= ~used;
+
+        int result = 0;
+        for (int cell : cage) {
+            if (board[cell] != 0) {
+                continue;
+            }
+            long kept = 0;
+            for (long options = candidates[cell]; options != 0; options &= options - 1) {
+                long bit = options & -options;
+                int rest = remaining - Long.numberOfTrailingZeros(bit) - 1;
+                long others = free & ~bit;
+                if (rest >= lowestSum(others, empty - 1) && rest <= highestSum(others, empty - 1)) {
+                    kept |= bit;
+                }
+            }
+            if (kept != candidates[cell]) {
+                if (kept == 0) {
+                    return -1;
+                }
+                candidates[cell] = kept;
+                if ((kept & (kept - 1)) == 0) {
+                    singles[singleCount++] = cell;
+                }
+                result = 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the sum of the count smallest digits of the mask, or Integer.MAX_VALUE if it has fewer digits.
+     */
+    private static int lowestSum(long digits, int count) {
+        int sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            if (digits == 0) {
+                return Integer.MAX_VALUE;
+            }
+            sum += Long.numberOfTrailingZeros(digits) + 1;
+            digits &= digits - 1;
+        }
+        return sum;
+    }
+
+    /**
+     * @return the sum of the count largest digits of the mask, or Integer.MIN_VALUE if it has fewer digits.
+     */
+    private static int highestSum(long digits, int count) {
+        int sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            if (digits == 0) {
+                return Integer.MIN_VALUE;
+            }
+            int highest = 63 - Long.numberOfLeadingZeros(digits);
+            sum += highest + 1;
+            digits &= ~(1L << highest);
+        }
+        return sum;
+    }
+}
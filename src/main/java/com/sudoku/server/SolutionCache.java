@@ -0,0 +1,108 @@
+package com.sudoku.server;
+
+import com.sudoku.Board;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache from the clues of a puzzle to its solution. The packed Board is used as the key, so an entry
+ * costs two 41 byte arrays. The cache is split into segments with their own lock, so concurrent requests rarely wait
+ * for each other.
+ */
+public class SolutionCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment segments[];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity - the maximum number of solutions kept in the cache.
+     */
+    public SolutionCache(int capacity) {
+        if (capacity < SEGMENTS) {
+            throw new IllegalArgumentException("The capacity must be at least " + SEGMENTS);
+        }
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i += 1) {
+            segments[i] = new Segment(capacity / SEGMENTS);
+        }
+    }
+
+    /**
+     * @return the solution of the clues, or null if it is not in the cache.
+     */
+    public Board get(Board clues) {
+        Segment segment = segmentFor(clues);
+        Board solution;
+        synchronized (segment) {
+            solution = segment.get(clues);
+        }
+        if (solution == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return solution;
+    }
+
+    public void put(Board clues, Board solution) {
+        Segment segment = segmentFor(clues);
+        synchronized (segment) {
+            segment.put(clues, solution);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(Board clues) {
+        int hash = clues.hashCode();
+        // spread the high bits, as the segment is picked with the lowest ones
+        hash ^= hash >>> 16;
+        return segments[hash & (SEGMENTS - 1)];
+    }
+
+    private class Segment extends LinkedHashMap<Board, Board> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            // access order makes the first entry the least recently used one
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Board, Board> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.sudoku.server;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The solving engines which the server can use. Solvers are not thread safe, so a new one is created for every
+ * request.
+ */
+public enum SolverEngine {
+    BACKTRACKING {
+        @Override
+        public SudokuSolver newSolver() {
+            return new GenerateSudoku();
+        }
+    },
+    BITMASK {
+        @Override
+        public SudokuSolver newSolver() {
+            return new BitmaskSolver();
+        }
+    },
+    DANCING_LINKS {
+        @Override
+        public SudokuSolver newSolver() {
+            return new DancingLinksSolver();
+        }
+    },
+    PARALLEL {
+        @Override
+        public SudokuSolver newSolver() {
+            return new ParallelSolver(ForkJoinPool.commonPool(), 2);
+        }
+    };
+
+    public abstract SudokuSolver newSolver();
+}
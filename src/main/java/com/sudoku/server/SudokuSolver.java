@@ -0,0 +1,32 @@
+package com.sudoku.server;
+
+/**
+ * Common interface of the Sudoku solving engines, so they can be swapped and compared on the same grids.
+ */
+public interface SudokuSolver {
+    /**
+     * Solves the grid in place. If the grid has no solution it is left unchanged.
+     *
+     * @return true if a solution was found.
+     */
+    boolean solve(int grid[][]);
+
+    /**
+     * Counts the solutions of the grid, but stops as soon as limit solutions are found. The grid is not modified.
+     *
+     * @return the number of solutions, at most limit. Invalid grids have 0 solutions.
+     */
+    int countSolutions(int grid[][], int limit);
+
+    /**
+     * Lets the searches of the following calls be stopped from another thread or by a deadline. A cancelled search
+     * returns what it found so far, so solve returns false and countSolutions may return fewer solutions.
+     */
+    void setCancellation(SearchCancellation cancellation);
+
+    /**
+     * @return the number of search nodes visited by all calls so far, a measure of the work which is independent of
+     * the machine.
+     */
+    long getNodes();
+}
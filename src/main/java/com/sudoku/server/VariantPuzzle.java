@@ -0,0 +1,31 @@
+package com.sudoku.server;
+
+import com.sudoku.SizedBoard;
+
+/**
+ * A generated puzzle of any size and variant, with the rules it has to be solved with(including the cages of a Killer
+ * puzzle) and its only solution.
+ */
+public class VariantPuzzle {
+    private final ConstraintModel model;
+    private final SizedBoard clues;
+    private final SizedBoard solution;
+
+    public VariantPuzzle(ConstraintModel model, SizedBoard clues, SizedBoard solution) {
+        this.model = model;
+        this.clues = clues;
+        this.solution = solution;
+    }
+
+    public ConstraintModel getModel() {
+        return model;
+    }
+
+    public SizedBoard getClues() {
+        return clues;
+    }
+
+    public SizedBoard getSolution() {
+        return solution;
+    }
+}
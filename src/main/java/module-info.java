@@ -2,10 +2,14 @@ module com.sudoku {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.rmi;
+    requires jdk.httpserver;
+    requires java.management;
     requires com.sudokugui;
 
 
     opens com.sudoku.client to javafx.fxml;
     exports com.sudoku;
     exports com.sudoku.client;
+    // the metrics are read through their MBean interfaces
+    exports com.sudoku.server to java.management;
 }
\ No newline at end of file
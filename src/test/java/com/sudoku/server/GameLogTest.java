@@ -0,0 +1,74 @@
+package com.sudoku.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class GameLogTest {
+    private static final int LINES = 20;
+    private static final int THREADS = 8;
+
+    @Test
+    void emptyLineDoesNotStopTheWriter(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("log.txt");
+        // a small queue, so a stopped writer would block the appends
+        GameLog gameLog = new GameLog(file, 4, 2, 10);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            gameLog.append("first");
+            gameLog.append("");
+            for (int i = 0; i < LINES; i += 1) {
+                gameLog.append("line " + i);
+            }
+            gameLog.close();
+        });
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(LINES + 2, lines.size());
+        assertEquals("first", lines.get(0));
+        assertEquals("", lines.get(1));
+        assertEquals("line " + (LINES - 1), lines.get(LINES + 1));
+        assertEquals(LINES + 2, gameLog.getWrittenLines());
+    }
+
+    @Test
+    void appendsRacingWithCloseAreWrittenOrRejected(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("log.txt");
+        GameLog gameLog = new GameLog(file, 4, 2, 10);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < THREADS; i += 1) {
+                int thread = i;
+                threads.add(new Thread(() -> {
+                    // appends until the log is closed, mostly blocked on the full queue
+                    try {
+                        for (int line = 0; ; line += 1) {
+                            gameLog.append("thread " + thread + " line " + line);
+                        }
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            Thread.sleep(50);
+            gameLog.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        });
+
+        assertEquals(gameLog.getAppendedLines(), gameLog.getWrittenLines());
+        assertEquals(gameLog.getWrittenLines(), Files.readAllLines(file).size());
+    }
+}
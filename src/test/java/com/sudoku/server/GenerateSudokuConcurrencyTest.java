@@ -0,0 +1,70 @@
+package com.sudoku.server;
+
+import com.sudoku.Board;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class GenerateSudokuConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 10;
+    private static final int SEEDS = 16;
+    private static final GenerateSudoku.Difficulty DIFFICULTIES[] = GenerateSudoku.Difficulty.values();
+
+    @Test
+    void sharedGeneratorMakesTheSamePuzzlesAsOneThread() {
+        Board expected[] = new Board[SEEDS];
+        for (int seed = 0; seed < SEEDS; seed += 1) {
+            expected[seed] = new GenerateSudoku().generatePuzzle(difficultyOf(seed), false, seed).getClues();
+        }
+
+        GenerateSudoku shared = new GenerateSudoku();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(120), () -> {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread += 1) {
+                    int first = thread;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < ITERATIONS; i += 1) {
+                            // the threads start at different seeds, so every seed is generated by several at once
+                            int seed = (first + i) % SEEDS;
+                            Puzzle seeded = shared.generatePuzzle(difficultyOf(seed), false, seed);
+                            assertEquals(expected[seed], seeded.getClues(), "Puzzle of seed " + seed);
+
+                            Puzzle random = shared.generatePuzzle(difficultyOf(i), i % 2 == 0);
+                            assertUniqueWithSolution(random);
+                        }
+                        return null;
+                    }));
+                }
+                // get() rethrows the failed assertions of the threads
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertUniqueWithSolution(Puzzle puzzle) {
+        int grid[][] = puzzle.getClues().toGrid();
+        assertEquals(1, new BitmaskSolver().countSolutions(grid, 2), "Solutions of " + puzzle.getClues());
+
+        new BitmaskSolver().solve(grid);
+        assertEquals(puzzle.getSolution(), Board.fromGrid(grid), "Solution of " + puzzle.getClues());
+    }
+
+    private static GenerateSudoku.Difficulty difficultyOf(int index) {
+        return DIFFICULTIES[index % DIFFICULTIES.length];
+    }
+}